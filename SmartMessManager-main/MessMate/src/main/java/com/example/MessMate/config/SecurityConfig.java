@@ -1,12 +1,16 @@
 package com.example.MessMate.config;
 
+import com.example.MessMate.service.SessionTokenService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -18,10 +22,26 @@ public class SecurityConfig {
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, SessionTokenService sessionTokenService) throws Exception {
+        // Sessions are carried by signed tokens, not HttpSession. Placing an order needs one, so the order is
+        // always the caller's; bulk and maintenance endpoints are admin only. Read endpoints the pages use
+        // without a token stay open.
         http
             .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .addFilterBefore(new SessionTokenFilter(sessionTokenService), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(authz -> authz
+                .requestMatchers(HttpMethod.POST, "/api/orders").authenticated()
+                .requestMatchers(HttpMethod.POST, "/api/students/import").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/api/orders/status/bulk").hasRole("ADMIN")
+                .requestMatchers("/api/orders/export").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/stats/backfill").hasRole("ADMIN")
+                .requestMatchers("/api/payments/reconcile/**", "/api/payments/export", "/api/payments/report")
+                    .hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/api/payments/*/status").hasRole("ADMIN")
+                .requestMatchers("/api/mess-pass/ledger/**", "/api/mess-pass/expired/sweep/**").hasRole("ADMIN")
+                // Offline pass snapshots are pulled by counter terminals, which sign in as staff
+                .requestMatchers("/api/mess-pass/snapshot/**").hasAnyRole("ADMIN", "STAFF")
                 .requestMatchers("/api/**").permitAll()
                 .requestMatchers("/**").permitAll()
                 .anyRequest().authenticated()
@@ -0,0 +1,63 @@
+package com.example.MessMate.config;
+
+import com.example.MessMate.service.SessionTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Authenticates requests carrying "Authorization: Bearer <session token>".
+ *
+ * The token is checked in memory (see SessionTokenService), so no account
+ * is loaded per request. Requests without a token pass through anonymously;
+ * a token that is present but invalid, expired or revoked is rejected with
+ * 401 so the client knows to log in again.
+ */
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final SessionTokenService sessionTokenService;
+
+    public SessionTokenFilter(SessionTokenService sessionTokenService) {
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<SessionTokenService.Principal> principal = sessionTokenService.verify(header.substring(BEARER.length()).trim());
+        if (principal.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"message\":\"Invalid or expired session token\",\"data\":null}");
+            return;
+        }
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                principal.get(), null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.get().role())));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
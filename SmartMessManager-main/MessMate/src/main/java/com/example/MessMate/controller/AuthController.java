@@ -4,11 +4,22 @@ import com.example.MessMate.dto.ApiResponse;
 import com.example.MessMate.dto.LoginRequest;
 import com.example.MessMate.dto.SignupRequest;
 import com.example.MessMate.dto.UserResponse;
+import com.example.MessMate.service.IdentityCache;
+import com.example.MessMate.service.LoginRateLimiter;
+import com.example.MessMate.service.PasswordHashingService;
+import com.example.MessMate.service.SessionTokenService;
+import com.example.MessMate.service.TooManyRequestsException;
 import com.example.MessMate.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -16,31 +27,72 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     
     private final UserService userService;
+    private final IdentityCache identityCache;
+    private final SessionTokenService sessionTokenService;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginRateLimiter loginRateLimiter;
     
     @PostMapping("/signup")
-    public ResponseEntity<ApiResponse> signup(@RequestBody SignupRequest request) {
+    public ResponseEntity<ApiResponse> signup(@RequestBody SignupRequest request, HttpServletRequest httpRequest) {
         try {
-            UserResponse user = userService.signup(request);
+            UserResponse user = userService.signup(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(ApiResponse.success("User registered successfully", user));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse> login(@RequestBody LoginRequest request) {
+    public ResponseEntity<ApiResponse> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         try {
-            UserResponse user = userService.login(request);
+            UserResponse user = userService.login(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(ApiResponse.success("Login successful", user));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
     
+    // Who the session token belongs to, without touching the database
+    @GetMapping("/me")
+    public ResponseEntity<ApiResponse> getCurrentSession() {
+        return SessionTokenService.currentPrincipal()
+                .map(principal -> ResponseEntity.ok(ApiResponse.success("Session is valid", principal)))
+                .orElse(ResponseEntity.status(401).body(ApiResponse.error("Not logged in")));
+    }
+    
+    // Works for user and student tokens alike
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse> logout() {
+        SessionTokenService.currentPrincipal().ifPresent(sessionTokenService::revoke);
+        return ResponseEntity.ok(ApiResponse.success("Logged out successfully"));
+    }
+    
     @GetMapping("/user/{email}")
     public ResponseEntity<ApiResponse> getUserByEmail(@PathVariable String email) {
         return userService.getUserByEmail(email)
                 .map(user -> ResponseEntity.ok(ApiResponse.success("User found", user)))
                 .orElse(ResponseEntity.notFound().build());
     }
+    
+    // Hash latency, queue wait and rejections, plus rate limiter counters
+    @GetMapping("/password-hashing/stats")
+    public ResponseEntity<ApiResponse> getPasswordHashingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hashing", passwordHashingService.getStats());
+        stats.put("rateLimits", loginRateLimiter.getStats());
+        return ResponseEntity.ok(ApiResponse.success("Password hashing stats retrieved successfully", stats));
+    }
+    
+    @GetMapping("/identity-cache/stats")
+    public ResponseEntity<ApiResponse> getIdentityCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("Identity cache stats retrieved successfully", identityCache.getStats()));
+    }
 }
\ No newline at end of file
@@ -1,11 +1,17 @@
 package com.example.MessMate.controller;
 
 import com.example.MessMate.dto.ApiResponse;
+import com.example.MessMate.dto.WeeklyMenuResponse;
 import com.example.MessMate.entity.DailyMenu;
 import com.example.MessMate.entity.MenuItem;
 import com.example.MessMate.service.MenuService;
+import com.example.MessMate.service.TodaysMenuCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -51,6 +57,12 @@ public class MenuController {
         return ResponseEntity.ok(ApiResponse.success("Search results retrieved successfully", items));
     }
     
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse> getMenuCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("Menu cache stats retrieved successfully",
+                menuService.getMenuCacheStats()));
+    }
+    
     @PostMapping("/items")
     public ResponseEntity<ApiResponse> createMenuItem(@RequestBody MenuItem menuItem) {
         try {
@@ -84,9 +96,30 @@ public class MenuController {
     
     // Daily Menu endpoints
     @GetMapping("/daily/today")
-    public ResponseEntity<ApiResponse> getTodaysMenu() {
-        List<DailyMenu> menu = menuService.getTodaysMenu();
-        return ResponseEntity.ok(ApiResponse.success("Today's menu retrieved successfully", menu));
+    public ResponseEntity<byte[]> getTodaysMenu(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        TodaysMenuCache.RenderedMenu menu = menuService.getRenderedTodaysMenu();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String etag = gzip ? menu.gzipEtag() : menu.etag();
+        
+        if (menu.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(menu.gzip());
+        }
+        return response.body(menu.identity());
     }
     
     @GetMapping("/daily/today/{mealType}")
@@ -107,8 +140,12 @@ public class MenuController {
     public ResponseEntity<ApiResponse> getWeeklyMenu(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<DailyMenu> menu = menuService.getWeeklyMenu(startDate, endDate);
-        return ResponseEntity.ok(ApiResponse.success("Weekly menu retrieved successfully", menu));
+        try {
+            WeeklyMenuResponse menu = menuService.getWeeklyMenu(startDate, endDate);
+            return ResponseEntity.ok(ApiResponse.success("Weekly menu retrieved successfully", menu));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
     
     @PostMapping("/daily")
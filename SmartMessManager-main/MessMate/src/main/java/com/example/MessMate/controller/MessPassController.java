@@ -1,12 +1,20 @@
 package com.example.MessMate.controller;
 
 import com.example.MessMate.dto.ApiResponse;
+import com.example.MessMate.dto.LedgerVerificationReport;
+import com.example.MessMate.dto.PassValidationResponse;
 import com.example.MessMate.entity.MessPass;
 import com.example.MessMate.entity.User;
+import com.example.MessMate.service.MessPassExpirySweeper;
 import com.example.MessMate.service.MessPassService;
+import com.example.MessMate.service.PassLedgerService;
+import com.example.MessMate.service.PassSnapshotService;
 import com.example.MessMate.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,6 +29,9 @@ import java.util.Optional;
 public class MessPassController {
     
     private final MessPassService messPassService;
+    private final MessPassExpirySweeper messPassExpirySweeper;
+    private final PassSnapshotService passSnapshotService;
+    private final PassLedgerService passLedgerService;
     private final UserService userService;
     
     @PostMapping("/create")
@@ -30,13 +41,7 @@ public class MessPassController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate validFrom,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate validUntil) {
         try {
-            Optional<User> userOptional = userService.getUserByEmail(userEmail)
-                    .map(userResponse -> {
-                        User user = new User();
-                        user.setId(userResponse.getId());
-                        user.setEmail(userResponse.getEmail());
-                        return user;
-                    });
+            Optional<User> userOptional = userService.getUserReference(userEmail);
             
             if (userOptional.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
@@ -52,13 +57,7 @@ public class MessPassController {
     @GetMapping("/user/{email}")
     public ResponseEntity<ApiResponse> getUserMessPass(@PathVariable String email) {
         try {
-            Optional<User> userOptional = userService.getUserByEmail(email)
-                    .map(userResponse -> {
-                        User user = new User();
-                        user.setId(userResponse.getId());
-                        user.setEmail(userResponse.getEmail());
-                        return user;
-                    });
+            Optional<User> userOptional = userService.getUserReference(email);
             
             if (userOptional.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
@@ -79,6 +78,20 @@ public class MessPassController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Lightweight check for the serving counter; answered from memory, not the database
+    @GetMapping("/validate/{passNumber}")
+    public ResponseEntity<ApiResponse> validatePass(@PathVariable String passNumber) {
+        PassValidationResponse validation = messPassService.validatePass(passNumber);
+        String message = validation.isValid() ? "Mess pass is valid" : "Mess pass is not valid";
+        return ResponseEntity.ok(ApiResponse.success(message, validation));
+    }
+    
+    @GetMapping("/validate/stats")
+    public ResponseEntity<ApiResponse> getValidationStats() {
+        return ResponseEntity.ok(ApiResponse.success("Pass validation stats retrieved successfully",
+                messPassService.getValidationStats()));
+    }
+    
     @PutMapping("/{id}/recharge")
     public ResponseEntity<ApiResponse> rechargePass(@PathVariable Long id, @RequestParam BigDecimal amount) {
         try {
@@ -114,4 +127,75 @@ public class MessPassController {
         return ResponseEntity.ok(ApiResponse.success("Expired passes retrieved successfully", 
                 messPassService.getExpiredPasses()));
     }
+    
+    // Runs the nightly sweep on demand, e.g. after a bulk import of backdated passes
+    @PostMapping("/expired/sweep")
+    public ResponseEntity<ApiResponse> sweepExpiredPasses() {
+        try {
+            int deactivated = messPassExpirySweeper.sweep();
+            return ResponseEntity.ok(ApiResponse.success("Deactivated " + deactivated + " expired passes",
+                    messPassExpirySweeper.getStats()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/expired/sweep/stats")
+    public ResponseEntity<ApiResponse> getSweepStats() {
+        return ResponseEntity.ok(ApiResponse.success("Sweep stats retrieved successfully",
+                messPassExpirySweeper.getStats()));
+    }
+    
+    @PostMapping("/ledger/snapshot")
+    public ResponseEntity<ApiResponse> snapshotLedger() {
+        try {
+            int folded = passLedgerService.snapshotBalances();
+            if (folded < 0) {
+                return ResponseEntity.ok(ApiResponse.success("Ledger snapshot skipped: already running elsewhere or waiting on open transactions", null));
+            }
+            return ResponseEntity.ok(ApiResponse.success("Ledger snapshot updated " + folded + " passes", folded));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/ledger/verify")
+    public ResponseEntity<ApiResponse> verifyLedger() {
+        try {
+            LedgerVerificationReport report = passLedgerService.verifySnapshots();
+            String message = report.getMismatches().isEmpty()
+                    ? "All ledger snapshots verified"
+                    : report.getMismatches().size() + " ledger snapshots do not match the ledger";
+            return ResponseEntity.ok(ApiResponse.success(message, report));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    // Binary snapshot of active passes for offline validation at counter terminals
+    @GetMapping("/snapshot")
+    public ResponseEntity<?> getPassSnapshot() {
+        try {
+            return snapshotResponse(passSnapshotService.getLatestFullSnapshot());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/snapshot/delta")
+    public ResponseEntity<?> getPassSnapshotDelta(@RequestParam long since) {
+        try {
+            return snapshotResponse(passSnapshotService.buildDelta(since));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    private ResponseEntity<FileSystemResource> snapshotResponse(PassSnapshotService.Snapshot snapshot) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header("X-Snapshot-Version", Long.toString(snapshot.version()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + snapshot.file().getFileName() + "\"")
+                .body(new FileSystemResource(snapshot.file()));
+    }
 }
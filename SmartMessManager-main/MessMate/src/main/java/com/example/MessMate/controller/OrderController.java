@@ -1,14 +1,31 @@
 package com.example.MessMate.controller;
 
 import com.example.MessMate.dto.ApiResponse;
+import com.example.MessMate.dto.BulkStatusUpdateRequest;
+import com.example.MessMate.dto.BulkStatusUpdateResponse;
+import com.example.MessMate.dto.CursorPage;
+import com.example.MessMate.dto.OrderRequest;
+import com.example.MessMate.dto.KitchenSummaryResponse;
 import com.example.MessMate.entity.MealOrder;
 import com.example.MessMate.entity.MenuItem;
 import com.example.MessMate.entity.User;
+import com.example.MessMate.service.IdempotencyService;
+import com.example.MessMate.service.JdbcStreamExporter;
+import com.example.MessMate.service.KitchenCounterService;
+import com.example.MessMate.service.OrderEventHub;
+import com.example.MessMate.service.OrderIntakeRejectedException;
+import com.example.MessMate.service.OrderIntakeService;
 import com.example.MessMate.service.OrderService;
+import com.example.MessMate.service.SessionTokenService;
 import com.example.MessMate.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,34 +37,79 @@ import java.util.Optional;
 public class OrderController {
     
     private final OrderService orderService;
+    private final OrderIntakeService orderIntakeService;
+    private final IdempotencyService idempotencyService;
+    private final KitchenCounterService kitchenCounterService;
+    private final OrderEventHub orderEventHub;
     private final UserService userService;
     
     @PostMapping
-    public ResponseEntity<ApiResponse> createOrder(@RequestBody MealOrder order) {
+    public ResponseEntity<ApiResponse> createOrder(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody OrderRequest request) {
+        // The security config already requires a token here; idempotency keys are namespaced by its principal
+        Optional<SessionTokenService.Principal> principal = SessionTokenService.currentPrincipal();
+        if (principal.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("Sign in to place an order"));
+        }
+        String owner = principal.get().kind() + ":" + principal.get().id();
+        return idempotencyService.execute("orders", owner, idempotencyKey, request,
+                () -> placeOrder(request, idempotencyKey != null));
+    }
+    
+    // A keyed order is written in the transaction that claims its key, so it cannot wait for the batching writer
+    private ResponseEntity<ApiResponse> placeOrder(OrderRequest request, boolean keyed) {
         try {
-            MealOrder created = orderService.createOrder(order);
+            Optional<User> userOptional = resolveUser(request);
+            if (userOptional.isEmpty()) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
+            }
+            
+            MealOrder order = orderService.prepareOrder(request, userOptional.get());
+            MealOrder created = orderIntakeService.isEnabled() && !keyed
+                    ? orderIntakeService.submit(order)
+                    : orderService.createOrder(order);
             return ResponseEntity.ok(ApiResponse.success("Order created successfully", created));
+        } catch (OrderIntakeRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
     
+    // The caller always orders as themselves; a body naming another account is refused
+    private Optional<User> resolveUser(OrderRequest request) {
+        Optional<User> caller = userService.getCurrentUserReference();
+        caller.ifPresent(user -> requireCaller(request, user.getId()));
+        return caller;
+    }
+    
+    private void requireCaller(OrderRequest request, Long callerId) {
+        boolean otherId = request.getUserId() != null && !request.getUserId().equals(callerId);
+        boolean otherEmail = request.getUserEmail() != null && userService.getUserReference(request.getUserEmail())
+                .map(User::getId)
+                .filter(callerId::equals)
+                .isEmpty();
+        if (otherId || otherEmail) {
+            throw new RuntimeException("Orders can only be placed for your own account");
+        }
+    }
+    
     @GetMapping("/user/{email}")
-    public ResponseEntity<ApiResponse> getUserOrders(@PathVariable String email) {
+    public ResponseEntity<ApiResponse> getUserOrders(
+            @PathVariable String email,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            Optional<User> userOptional = userService.getUserByEmail(email)
-                    .map(userResponse -> {
-                        User user = new User();
-                        user.setId(userResponse.getId());
-                        user.setEmail(userResponse.getEmail());
-                        return user;
-                    });
+            Optional<User> userOptional = userService.getUserReference(email);
             
             if (userOptional.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
             }
             
-            List<MealOrder> orders = orderService.getUserOrders(userOptional.get());
+            CursorPage<MealOrder> orders = orderService.getUserOrders(userOptional.get(), cursor, limit);
             return ResponseEntity.ok(ApiResponse.success("User orders retrieved successfully", orders));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -55,9 +117,24 @@ public class OrderController {
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<ApiResponse> getOrdersByStatus(@PathVariable MealOrder.OrderStatus status) {
-        List<MealOrder> orders = orderService.getOrdersByStatus(status);
-        return ResponseEntity.ok(ApiResponse.success("Orders retrieved successfully", orders));
+    public ResponseEntity<ApiResponse> getOrdersByStatus(
+            @PathVariable MealOrder.OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<MealOrder> orders = orderService.getOrdersByStatus(status, cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success("Orders retrieved successfully", orders));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping(value = "/export", produces = JdbcStreamExporter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) MealOrder.OrderStatus status) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(JdbcStreamExporter.NDJSON))
+                .body(orderService.exportOrders(status));
     }
     
     @GetMapping("/today/{mealType}")
@@ -66,6 +143,33 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success("Today's orders retrieved successfully", orders));
     }
     
+    @GetMapping("/today/{mealType}/summary")
+    public ResponseEntity<ApiResponse> getTodaysOrderSummary(@PathVariable MenuItem.MealType mealType) {
+        KitchenSummaryResponse summary = kitchenCounterService.getSummary(mealType);
+        return ResponseEntity.ok(ApiResponse.success("Today's order summary retrieved successfully", summary));
+    }
+    
+    @GetMapping("/intake/stats")
+    public ResponseEntity<ApiResponse> getIntakeStats() {
+        return ResponseEntity.ok(ApiResponse.success("Order intake stats retrieved successfully",
+                orderIntakeService.getStats()));
+    }
+    
+    // Dashboards use EventSource; it resends Last-Event-ID on reconnect to replay missed events.
+    // EventSource cannot set an Authorization header, so the stream is open. Events carry order ids, meal
+    // types, statuses and totals only, never who placed the order.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrders(@RequestParam(required = false) MenuItem.MealType mealType,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderEventHub.subscribe(mealType, lastEventId);
+    }
+    
+    @GetMapping("/stream/stats")
+    public ResponseEntity<ApiResponse> getStreamStats() {
+        return ResponseEntity.ok(ApiResponse.success("Order stream stats retrieved successfully",
+                orderEventHub.getStats()));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse> getOrderById(@PathVariable Long id) {
         return orderService.getOrderById(id)
@@ -83,6 +187,16 @@ public class OrderController {
         }
     }
     
+    @PutMapping("/status/bulk")
+    public ResponseEntity<ApiResponse> bulkUpdateOrderStatus(@RequestBody BulkStatusUpdateRequest request) {
+        try {
+            BulkStatusUpdateResponse result = orderService.bulkUpdateStatus(request);
+            return ResponseEntity.ok(ApiResponse.success("Order statuses updated", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
     @PutMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse> cancelOrder(@PathVariable Long id) {
         try {
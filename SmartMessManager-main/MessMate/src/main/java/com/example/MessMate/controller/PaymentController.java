@@ -1,16 +1,21 @@
 package com.example.MessMate.controller;
 
 import com.example.MessMate.dto.ApiResponse;
-import com.example.MessMate.entity.MessPass;
+import com.example.MessMate.dto.CursorPage;
 import com.example.MessMate.entity.Payment;
 import com.example.MessMate.entity.User;
-import com.example.MessMate.service.MessPassService;
+import com.example.MessMate.service.IdempotencyService;
+import com.example.MessMate.service.JdbcStreamExporter;
+import com.example.MessMate.service.PaymentReconciliationService;
 import com.example.MessMate.service.PaymentService;
 import com.example.MessMate.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -25,7 +30,8 @@ public class PaymentController {
     
     private final PaymentService paymentService;
     private final UserService userService;
-    private final MessPassService messPassService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentReconciliationService paymentReconciliationService;
     
     @PostMapping
     public ResponseEntity<ApiResponse> createPayment(@RequestBody Payment payment) {
@@ -44,27 +50,22 @@ public class PaymentController {
     
     @PostMapping("/recharge")
     public ResponseEntity<ApiResponse> processMessPassRecharge(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestParam String userEmail,
             @RequestParam BigDecimal amount) {
+        return idempotencyService.execute("recharge", userEmail, idempotencyKey,
+                List.of(userEmail, amount), () -> rechargeMessPass(userEmail, amount));
+    }
+    
+    private ResponseEntity<ApiResponse> rechargeMessPass(String userEmail, BigDecimal amount) {
         try {
-            Optional<User> userOptional = userService.getUserByEmail(userEmail)
-                    .map(userResponse -> {
-                        User user = new User();
-                        user.setId(userResponse.getId());
-                        user.setEmail(userResponse.getEmail());
-                        return user;
-                    });
+            Optional<User> userOptional = userService.getUserReference(userEmail);
             
             if (userOptional.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
             }
             
-            Optional<MessPass> messPassOptional = messPassService.getUserMessPass(userOptional.get());
-            if (messPassOptional.isEmpty()) {
-                return ResponseEntity.badRequest().body(ApiResponse.error("Mess pass not found"));
-            }
-            
-            Payment payment = paymentService.processMessPassRecharge(userOptional.get(), messPassOptional.get(), amount);
+            Payment payment = paymentService.rechargeMessPass(userOptional.get(), amount);
             return ResponseEntity.ok(ApiResponse.success("Mess pass recharged successfully", payment));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -72,21 +73,18 @@ public class PaymentController {
     }
     
     @GetMapping("/user/{email}")
-    public ResponseEntity<ApiResponse> getUserPayments(@PathVariable String email) {
+    public ResponseEntity<ApiResponse> getUserPayments(
+            @PathVariable String email,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            Optional<User> userOptional = userService.getUserByEmail(email)
-                    .map(userResponse -> {
-                        User user = new User();
-                        user.setId(userResponse.getId());
-                        user.setEmail(userResponse.getEmail());
-                        return user;
-                    });
+            Optional<User> userOptional = userService.getUserReference(email);
             
             if (userOptional.isEmpty()) {
                 return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
             }
             
-            List<Payment> payments = paymentService.getUserPayments(userOptional.get());
+            CursorPage<Payment> payments = paymentService.getUserPayments(userOptional.get(), cursor, limit);
             return ResponseEntity.ok(ApiResponse.success("User payments retrieved successfully", payments));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -94,9 +92,24 @@ public class PaymentController {
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<ApiResponse> getPaymentsByStatus(@PathVariable Payment.PaymentStatus status) {
-        List<Payment> payments = paymentService.getPaymentsByStatus(status);
-        return ResponseEntity.ok(ApiResponse.success("Payments retrieved successfully", payments));
+    public ResponseEntity<ApiResponse> getPaymentsByStatus(
+            @PathVariable Payment.PaymentStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<Payment> payments = paymentService.getPaymentsByStatus(status, cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success("Payments retrieved successfully", payments));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping(value = "/export", produces = JdbcStreamExporter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(required = false) Payment.PaymentStatus status) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(JdbcStreamExporter.NDJSON))
+                .body(paymentService.exportPayments(status));
     }
     
     @GetMapping("/transaction/{transactionId}")
@@ -106,6 +119,23 @@ public class PaymentController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Settles PENDING payments against the gateway; resumes from the checkpoint after a crash or failure
+    @PostMapping("/reconcile")
+    public ResponseEntity<ApiResponse> reconcilePayments() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Payment reconciliation completed",
+                    paymentReconciliationService.reconcile()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/reconcile/status")
+    public ResponseEntity<ApiResponse> getReconciliationStatus() {
+        return ResponseEntity.ok(ApiResponse.success("Reconciliation status retrieved successfully",
+                paymentReconciliationService.getStatus()));
+    }
+    
     @PutMapping("/{id}/status")
     public ResponseEntity<ApiResponse> updatePaymentStatus(@PathVariable Long id, @RequestParam Payment.PaymentStatus status) {
         try {
@@ -116,12 +146,41 @@ public class PaymentController {
         }
     }
     
+    // format=ndjson|csv streams from a database cursor; mode=aggregate returns SQL-side totals per day/type/status.
+    // Plain JSON rows are kept for existing callers and need a payment type.
     @GetMapping("/report")
-    public ResponseEntity<ApiResponse> getPaymentReport(
-            @RequestParam Payment.PaymentType paymentType,
+    public ResponseEntity<?> getPaymentReport(
+            @RequestParam(required = false) Payment.PaymentType paymentType,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        List<Payment> payments = paymentService.getPaymentsByTypeAndDateRange(paymentType, startDate, endDate);
-        return ResponseEntity.ok(ApiResponse.success("Payment report retrieved successfully", payments));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(name = "format", defaultValue = "json") String formatName,
+            @RequestParam(defaultValue = "rows") String mode) {
+        try {
+            PaymentService.ReportFormat format = PaymentService.ReportFormat.valueOf(formatName.toUpperCase());
+            boolean aggregate = "aggregate".equalsIgnoreCase(mode);
+            if (format == PaymentService.ReportFormat.JSON) {
+                if (aggregate) {
+                    return ResponseEntity.ok(ApiResponse.success("Payment totals retrieved successfully",
+                            paymentService.getPaymentAggregate(paymentType, startDate, endDate)));
+                }
+                if (paymentType == null) {
+                    return ResponseEntity.badRequest().body(ApiResponse.error("paymentType is required for JSON rows; use format=ndjson or csv for all types"));
+                }
+                List<Payment> payments = paymentService.getPaymentsByTypeAndDateRange(paymentType, startDate, endDate);
+                return ResponseEntity.ok(ApiResponse.success("Payment report retrieved successfully", payments));
+            }
+            
+            StreamingResponseBody body = aggregate
+                    ? paymentService.streamPaymentAggregate(paymentType, startDate, endDate, format)
+                    : paymentService.streamPaymentReport(paymentType, startDate, endDate, format);
+            boolean csv = format == PaymentService.ReportFormat.CSV;
+            String fileName = (aggregate ? "payment-totals" : "payments") + (csv ? ".csv" : ".ndjson");
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(csv ? JdbcStreamExporter.CSV : JdbcStreamExporter.NDJSON))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
 }
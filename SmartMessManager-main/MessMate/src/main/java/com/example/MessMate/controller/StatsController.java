@@ -0,0 +1,44 @@
+package com.example.MessMate.controller;
+
+import com.example.MessMate.dto.ApiResponse;
+import com.example.MessMate.service.DailyRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class StatsController {
+    
+    private final DailyRollupService dailyRollupService;
+    
+    // Served from daily_rollups in one range scan, independent of how many orders and payments exist
+    @GetMapping("/range")
+    public ResponseEntity<ApiResponse> getRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Stats retrieved successfully",
+                    dailyRollupService.getRange(from, to)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/backfill")
+    public ResponseEntity<ApiResponse> backfill(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            int days = dailyRollupService.backfill(from, to);
+            return ResponseEntity.ok(ApiResponse.success("Rebuilt daily rollups for " + days + " days", days));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -2,10 +2,16 @@ package com.example.MessMate.controller;
 
 import com.example.MessMate.dto.ApiResponse;
 import com.example.MessMate.dto.StudentLoginRequest;
+import com.example.MessMate.dto.StudentImportReport;
 import com.example.MessMate.dto.StudentSignupRequest;
 import com.example.MessMate.dto.StudentResponse;
+import com.example.MessMate.service.StudentImportService;
 import com.example.MessMate.service.StudentService;
+import com.example.MessMate.service.TooManyRequestsException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,22 +24,57 @@ import java.util.List;
 public class StudentController {
     
     private final StudentService studentService;
+    private final StudentImportService studentImportService;
     
     @PostMapping("/signup")
-    public ResponseEntity<ApiResponse> signup(@RequestBody StudentSignupRequest request) {
+    public ResponseEntity<ApiResponse> signup(@RequestBody StudentSignupRequest request, HttpServletRequest httpRequest) {
         try {
-            StudentResponse student = studentService.signup(request);
+            StudentResponse student = studentService.signup(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(ApiResponse.success("Student registered successfully", student));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    // Bulk registration from a CSV (header row required) or NDJSON body; the report lists every rejected row.
+    // Admins only, see SecurityConfig
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse> importStudents(
+            @RequestParam(name = "format", required = false) String formatName,
+            HttpServletRequest httpRequest) {
+        try {
+            StudentImportService.Format format;
+            if (formatName != null) {
+                format = StudentImportService.Format.valueOf(formatName.toUpperCase());
+            } else {
+                String contentType = httpRequest.getContentType();
+                format = contentType != null && contentType.contains("ndjson")
+                        ? StudentImportService.Format.NDJSON : StudentImportService.Format.CSV;
+            }
+            StudentImportReport report = studentImportService.importStudents(httpRequest.getInputStream(), format);
+            return ResponseEntity.ok(ApiResponse.success("Imported " + report.getImported() + " of " + report.getRows() + " students", report));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse> login(@RequestBody StudentLoginRequest request) {
+    public ResponseEntity<ApiResponse> login(@RequestBody StudentLoginRequest request, HttpServletRequest httpRequest) {
         try {
-            StudentResponse student = studentService.login(request);
+            StudentResponse student = studentService.login(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(ApiResponse.success("Login successful", student));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -0,0 +1,16 @@
+package com.example.MessMate.dto;
+
+import com.example.MessMate.entity.MealOrder;
+import com.example.MessMate.entity.MenuItem;
+import lombok.Data;
+
+import java.util.List;
+
+// Either orderIds, or mealType + fromStatus to select all of today's matching orders
+@Data
+public class BulkStatusUpdateRequest {
+    private List<Long> orderIds;
+    private MenuItem.MealType mealType;
+    private MealOrder.OrderStatus fromStatus;
+    private MealOrder.OrderStatus targetStatus;
+}
@@ -0,0 +1,31 @@
+package com.example.MessMate.dto;
+
+import com.example.MessMate.entity.MealOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResponse {
+    private MealOrder.OrderStatus targetStatus;
+    private int requested;
+    private int updated;
+    private List<Result> results;
+    
+    public enum Outcome {
+        UPDATED, UNCHANGED, NOT_FOUND, INVALID_TRANSITION, CONFLICT
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long orderId;
+        private MealOrder.OrderStatus previousStatus;
+        private Outcome outcome;
+    }
+}
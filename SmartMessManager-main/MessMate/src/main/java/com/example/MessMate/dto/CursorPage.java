@@ -0,0 +1,63 @@
+package com.example.MessMate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a (createdAt, id) keyset scan; pass nextCursor back to get the following page
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+    
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+    
+    // Callers fetch limit + 1 rows so the extra row tells us whether another page exists
+    public static <T> CursorPage<T> of(List<T> rows, int limit,
+                                       Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = new Cursor(createdAt.apply(last), id.apply(last)).encode();
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    public record Cursor(LocalDateTime createdAt, Long id) {
+        
+        public String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        public static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.MessMate.dto;
+
+import com.example.MessMate.entity.MealOrder;
+import com.example.MessMate.entity.MenuItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenSummaryResponse {
+    private LocalDate date;
+    private MenuItem.MealType mealType;
+    private long totalOrders;
+    private Map<MealOrder.OrderStatus, Long> ordersByStatus;
+    private List<ItemCount> items;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemCount {
+        private Long menuItemId;
+        private String name;
+        private Long total;
+        private Map<MealOrder.OrderStatus, Long> byStatus;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.MessMate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerVerificationReport {
+    private long checkedPasses;
+    private int partitions;
+    private long durationMillis;
+    private List<Mismatch> mismatches;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Mismatch {
+        private Long passId;
+        private BigDecimal snapshotBalance;
+        private BigDecimal ledgerBalance;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.MessMate.dto;
+
+import com.example.MessMate.entity.MealOrder;
+import com.example.MessMate.entity.MenuItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+    private long eventId;
+    private Type type;
+    private Long orderId;
+    private MenuItem.MealType mealType;
+    private MealOrder.OrderStatus previousStatus;
+    private MealOrder.OrderStatus status;
+    private BigDecimal totalAmount;
+    private LocalDateTime occurredAt;
+    
+    public enum Type {
+        CREATED, STATUS_CHANGED, CANCELLED
+    }
+}
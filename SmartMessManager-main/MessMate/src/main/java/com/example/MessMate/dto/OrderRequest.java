@@ -0,0 +1,22 @@
+package com.example.MessMate.dto;
+
+import com.example.MessMate.entity.MenuItem;
+import lombok.Data;
+
+import java.util.List;
+
+// Clients send item ids and quantities only; prices are always taken from the server-side menu
+@Data
+public class OrderRequest {
+    private Long userId;
+    private String userEmail;
+    private MenuItem.MealType mealType;
+    private String specialInstructions;
+    private List<Line> items;
+    
+    @Data
+    public static class Line {
+        private Long menuItemId;
+        private Integer quantity;
+    }
+}
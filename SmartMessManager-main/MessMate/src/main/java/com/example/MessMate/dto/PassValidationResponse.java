@@ -0,0 +1,28 @@
+package com.example.MessMate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassValidationResponse {
+    private String passNumber;
+    private boolean valid;
+    private Status status;
+    private Long passId;
+    private LocalDate validUntil;
+    private BigDecimal balance;
+    
+    public enum Status {
+        VALID, NOT_FOUND, INACTIVE, NOT_YET_VALID, EXPIRED
+    }
+    
+    public static PassValidationResponse rejected(String passNumber, Status status) {
+        return new PassValidationResponse(passNumber, false, status, null, null, null);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.MessMate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+    private Outcome outcome;
+    private boolean resumed;
+    private long startedAfterPaymentId;
+    private long checkpointPaymentId;
+    private long scanned;
+    private long completed;
+    private long failed;
+    private long unsettled;
+    private int chunks;
+    private long durationMillis;
+    private LocalDateTime finishedAt;
+    private String error;
+    
+    public enum Outcome {
+        FINISHED, FAILED, ALREADY_RUNNING
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.MessMate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsRangeResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private Totals totals;
+    private List<Day> days;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private LocalDate date;
+        private Totals totals;
+        private Map<String, Totals> byMealType;
+        private Map<String, Totals> byPaymentType;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    public static class Totals {
+        private long orderCount;
+        private long itemCount;
+        private BigDecimal orderRevenue = BigDecimal.ZERO;
+        private long paymentCount;
+        private BigDecimal paymentAmount = BigDecimal.ZERO;
+        private BigDecimal rechargeTotal = BigDecimal.ZERO;
+        
+        public void add(Totals other) {
+            orderCount += other.orderCount;
+            itemCount += other.itemCount;
+            orderRevenue = orderRevenue.add(other.orderRevenue);
+            paymentCount += other.paymentCount;
+            paymentAmount = paymentAmount.add(other.paymentAmount);
+            rechargeTotal = rechargeTotal.add(other.rechargeTotal);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.MessMate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportReport {
+    private int rows;
+    private int imported;
+    private int rejected;
+    private long durationMillis;
+    // Only rows that were not imported, in file order
+    private List<RowError> errors;
+    
+    public enum Reason {
+        MALFORMED, MISSING_FIELD, DUPLICATE_IN_FILE, EMAIL_EXISTS, ROLL_NUMBER_EXISTS, CONFLICT
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int line;
+        private String email;
+        private String rollNumber;
+        private Reason reason;
+        private String message;
+    }
+}
@@ -21,6 +21,8 @@ public class StudentResponse {
     private Boolean isActive;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Session token, only set on login
+    private String token;
     
     public static StudentResponse fromStudent(Student student) {
         return new StudentResponse(
@@ -33,7 +35,8 @@ public class StudentResponse {
             student.getPhone(),
             student.getIsActive(),
             student.getCreatedAt(),
-            student.getUpdatedAt()
+            student.getUpdatedAt(),
+            null
         );
     }
 }
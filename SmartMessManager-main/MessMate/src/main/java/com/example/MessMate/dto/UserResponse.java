@@ -13,6 +13,8 @@ public class UserResponse {
     private String hostel;
     private String room;
     private String phone;
+    // Session token, only set on login
+    private String token;
     
     public static UserResponse fromUser(User user) {
         UserResponse response = new UserResponse();
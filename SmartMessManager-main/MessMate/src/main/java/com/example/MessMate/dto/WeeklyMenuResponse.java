@@ -0,0 +1,60 @@
+package com.example.MessMate.dto;
+
+import com.example.MessMate.entity.MenuItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeeklyMenuResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<DayMenu> days;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayMenu {
+        private LocalDate date;
+        private Map<MenuItem.MealType, List<MenuItemSummary>> meals;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MenuItemSummary {
+        private Long id;
+        private String name;
+        private BigDecimal price;
+        private MenuItem.FoodCategory category;
+        private Boolean isVegetarian;
+    }
+    
+    // Rows must be ordered by date so each day is built in one pass
+    public static WeeklyMenuResponse fromRows(LocalDate startDate, LocalDate endDate, List<WeeklyMenuRow> rows) {
+        List<DayMenu> days = new ArrayList<>();
+        DayMenu day = null;
+        for (WeeklyMenuRow row : rows) {
+            if (day == null || !Objects.equals(day.getDate(), row.getMenuDate())) {
+                day = new DayMenu(row.getMenuDate(), new EnumMap<>(MenuItem.MealType.class));
+                days.add(day);
+            }
+            List<MenuItemSummary> items = day.getMeals().computeIfAbsent(row.getMealType(), k -> new ArrayList<>());
+            if (row.getItemId() != null) {
+                items.add(new MenuItemSummary(row.getItemId(), row.getItemName(), row.getPrice(),
+                        row.getCategory(), row.getIsVegetarian()));
+            }
+        }
+        return new WeeklyMenuResponse(startDate, endDate, days);
+    }
+}
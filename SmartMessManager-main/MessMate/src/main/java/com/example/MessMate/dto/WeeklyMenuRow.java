@@ -0,0 +1,21 @@
+package com.example.MessMate.dto;
+
+import com.example.MessMate.entity.MenuItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Flat row produced by the weekly menu join query; item columns are null for empty menus
+@Data
+@AllArgsConstructor
+public class WeeklyMenuRow {
+    private LocalDate menuDate;
+    private MenuItem.MealType mealType;
+    private Long itemId;
+    private String itemName;
+    private BigDecimal price;
+    private MenuItem.FoodCategory category;
+    private Boolean isVegetarian;
+}
@@ -0,0 +1,55 @@
+package com.example.MessMate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Order rows use paymentType = ALL, payment rows use mealType = ALL
+@Entity
+@Table(name = "daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_rollups_key", columnNames = {"rollup_date", "meal_type", "payment_type"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRollup {
+    
+    public static final String ALL = "ALL";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+    
+    @Column(name = "meal_type", nullable = false, length = 20)
+    private String mealType;
+    
+    @Column(name = "payment_type", nullable = false, length = 30)
+    private String paymentType;
+    
+    // Orders that were not cancelled, by the day they were placed
+    @Column(nullable = false)
+    private Long orderCount = 0L;
+    
+    @Column(nullable = false)
+    private Long itemCount = 0L;
+    
+    @Column(nullable = false)
+    private BigDecimal orderRevenue = BigDecimal.ZERO;
+    
+    // Completed payments only
+    @Column(nullable = false)
+    private Long paymentCount = 0L;
+    
+    @Column(nullable = false)
+    private BigDecimal paymentAmount = BigDecimal.ZERO;
+    
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,51 @@
+package com.example.MessMate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    // A key is claimed PENDING in the transaction that does the work and COMPLETED before it commits
+    public enum State {
+        PENDING, COMPLETED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Scope plus a hash of the caller and client key, e.g. "orders:3f2a..."
+    @Column(nullable = false, unique = true, length = 200)
+    private String recordKey;
+    
+    // SHA-256 of the request this response answered
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state;
+    
+    private Integer statusCode;
+    
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
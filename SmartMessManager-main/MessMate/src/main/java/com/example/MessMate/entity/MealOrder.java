@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "meal_orders")
+@Table(name = "meal_orders", indexes = {
+    @Index(name = "idx_meal_orders_user_created", columnList = "user_id, created_at DESC, id DESC"),
+    @Index(name = "idx_meal_orders_status_created", columnList = "status, created_at DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -55,6 +58,14 @@ public class MealOrder {
     private LocalDateTime updatedAt;
     
     public enum OrderStatus {
-        PENDING, CONFIRMED, PREPARING, READY, DELIVERED, CANCELLED
+        PENDING, CONFIRMED, PREPARING, READY, DELIVERED, CANCELLED;
+        
+        // Orders only move forward through the kitchen and can be cancelled until delivered
+        public boolean canTransitionTo(OrderStatus target) {
+            if (this == DELIVERED || this == CANCELLED) {
+                return false;
+            }
+            return target == CANCELLED || target.ordinal() > ordinal();
+        }
     }
 }
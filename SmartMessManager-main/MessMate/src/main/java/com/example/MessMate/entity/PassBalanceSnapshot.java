@@ -0,0 +1,35 @@
+package com.example.MessMate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Sum of a pass's ledger entries up to and including lastEntryId
+@Entity
+@Table(name = "pass_balance_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassBalanceSnapshot {
+    
+    // Current balance in SQL: snapshot plus tail, for a pass aliased "p" joined to its snapshot aliased "s"
+    public static final String BALANCE_EXPRESSION = "COALESCE(s.balance, 0) + COALESCE((SELECT SUM(l.amount) " +
+            "FROM pass_ledger l WHERE l.pass_id = p.id AND l.id > COALESCE(s.last_entry_id, 0)), 0)";
+    
+    @Id
+    @Column(name = "pass_id")
+    private Long passId;
+    
+    @Column(nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private Long lastEntryId = 0L;
+    
+    @Column(nullable = false)
+    private LocalDateTime snapshotAt;
+}
@@ -0,0 +1,46 @@
+package com.example.MessMate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Append-only: rows are never updated or deleted; credits are positive, debits negative
+@Entity
+@Table(name = "pass_ledger", indexes = {
+    @Index(name = "idx_pass_ledger_pass_id", columnList = "pass_id, id"),
+    @Index(name = "idx_pass_ledger_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassLedgerEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "pass_id", nullable = false)
+    private Long passId;
+    
+    @Column(nullable = false)
+    private BigDecimal amount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EntryType entryType;
+    
+    // Transaction id, order id or other source of the movement
+    private String reference;
+    
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    
+    public enum EntryType {
+        OPENING, RECHARGE, MEAL_DEDUCTION, ADJUSTMENT
+    }
+}
@@ -10,7 +10,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payments_user_created", columnList = "user_id, created_at DESC, id DESC"),
+    @Index(name = "idx_payments_status_created", columnList = "status, created_at DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,37 @@
+package com.example.MessMate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Progress of a reconciliation job: every PENDING payment up to lastPaymentId has been checked
+@Entity
+@Table(name = "reconciliation_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationCheckpoint {
+    
+    @Id
+    private String name;
+    
+    @Column(nullable = false)
+    private Long lastPaymentId = 0L;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private State state = State.IDLE;
+    
+    private LocalDateTime heartbeatAt;
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime finishedAt;
+    
+    public enum State {
+        IDLE, RUNNING, FAILED
+    }
+}
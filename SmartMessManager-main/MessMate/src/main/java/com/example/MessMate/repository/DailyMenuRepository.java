@@ -1,8 +1,12 @@
 package com.example.MessMate.repository;
 
+import com.example.MessMate.dto.WeeklyMenuRow;
 import com.example.MessMate.entity.DailyMenu;
 import com.example.MessMate.entity.MenuItem;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -14,9 +18,20 @@ public interface DailyMenuRepository extends JpaRepository<DailyMenu, Long> {
     
     List<DailyMenu> findByMenuDateAndIsActiveTrue(LocalDate menuDate);
     
+    // Loads the menus together with their items in one query
+    @EntityGraph(attributePaths = "menuItems")
+    List<DailyMenu> findWithMenuItemsByMenuDateAndIsActiveTrue(LocalDate menuDate);
+    
     Optional<DailyMenu> findByMenuDateAndMealTypeAndIsActiveTrue(LocalDate menuDate, MenuItem.MealType mealType);
     
     List<DailyMenu> findByMenuDateBetweenAndIsActiveTrue(LocalDate startDate, LocalDate endDate);
     
     List<DailyMenu> findByMealTypeAndIsActiveTrue(MenuItem.MealType mealType);
+    
+    // Single join over the date range so the weekly view never lazy loads menu items
+    @Query("SELECT new com.example.MessMate.dto.WeeklyMenuRow(d.menuDate, d.mealType, i.id, i.name, i.price, i.category, i.isVegetarian) " +
+           "FROM DailyMenu d LEFT JOIN d.menuItems i " +
+           "WHERE d.menuDate BETWEEN :startDate AND :endDate AND d.isActive = true " +
+           "ORDER BY d.menuDate, d.mealType, i.name")
+    List<WeeklyMenuRow> findWeeklyMenuRows(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 }
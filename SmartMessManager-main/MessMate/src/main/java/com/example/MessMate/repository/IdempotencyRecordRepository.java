@@ -0,0 +1,46 @@
+package com.example.MessMate.repository;
+
+import com.example.MessMate.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    
+    Optional<IdempotencyRecord> findByRecordKey(String recordKey);
+    
+    // 1 if the key is now ours: new, or taking over a row that has expired. On a live key held by an
+    // uncommitted transaction this waits for it, then returns 0 if that transaction committed.
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "INSERT INTO idempotency_keys (record_key, request_hash, state, created_at, expires_at) " +
+            "VALUES (:recordKey, :requestHash, 'PENDING', now(), :expiresAt) " +
+            "ON CONFLICT (record_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, state = 'PENDING', " +
+            "status_code = NULL, response_body = NULL, created_at = now(), expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < now()", nativeQuery = true)
+    int claim(@Param("recordKey") String recordKey,
+              @Param("requestHash") String requestHash,
+              @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query("UPDATE IdempotencyRecord r SET r.state = :state, r.statusCode = :statusCode, " +
+            "r.responseBody = :responseBody WHERE r.recordKey = :recordKey")
+    int complete(@Param("recordKey") String recordKey,
+                 @Param("state") IdempotencyRecord.State state,
+                 @Param("statusCode") int statusCode,
+                 @Param("responseBody") String responseBody);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
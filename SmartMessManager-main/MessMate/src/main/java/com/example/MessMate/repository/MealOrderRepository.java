@@ -3,22 +3,81 @@ package com.example.MessMate.repository;
 import com.example.MessMate.entity.MealOrder;
 import com.example.MessMate.entity.MenuItem;
 import com.example.MessMate.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MealOrderRepository extends JpaRepository<MealOrder, Long> {
     
-    List<MealOrder> findByUserOrderByCreatedAtDesc(User user);
+    // Keyset pages ordered by (createdAt, id) descending, backed by idx_meal_orders_user_created
+    @Query("SELECT o FROM MealOrder o WHERE o.user = :user ORDER BY o.createdAt DESC, o.id DESC")
+    List<MealOrder> findPageByUser(@Param("user") User user, Limit limit);
     
-    List<MealOrder> findByStatus(MealOrder.OrderStatus status);
+    @Query("SELECT o FROM MealOrder o WHERE o.user = :user " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<MealOrder> findPageByUserBefore(@Param("user") User user, @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, Limit limit);
+    
+    // Keyset pages backed by idx_meal_orders_status_created
+    @Query("SELECT o FROM MealOrder o WHERE o.status = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<MealOrder> findPageByStatus(@Param("status") MealOrder.OrderStatus status, Limit limit);
+    
+    @Query("SELECT o FROM MealOrder o WHERE o.status = :status " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<MealOrder> findPageByStatusBefore(@Param("status") MealOrder.OrderStatus status,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id, Limit limit);
     
     List<MealOrder> findByMealTypeAndCreatedAtBetween(MenuItem.MealType mealType, LocalDateTime start, LocalDateTime end);
     
     List<MealOrder> findByUserAndStatus(User user, MealOrder.OrderStatus status);
     
     long countByUserAndCreatedAtBetween(User user, LocalDateTime start, LocalDateTime end);
+    
+    // Rows of [mealType, status, orderCount] used to seed the kitchen counters
+    @Query("SELECT o.mealType, o.status, COUNT(o) FROM MealOrder o " +
+           "WHERE o.createdAt >= :start AND o.createdAt < :end GROUP BY o.mealType, o.status")
+    List<Object[]> countOrdersByMealTypeAndStatus(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    // Rows of [mealType, menuItemId, status, plateCount] used to seed the kitchen counters
+    @Query("SELECT o.mealType, i.id, o.status, COUNT(i) FROM MealOrder o JOIN o.menuItems i " +
+           "WHERE o.createdAt >= :start AND o.createdAt < :end GROUP BY o.mealType, i.id, o.status")
+    List<Object[]> countItemsByMealTypeAndStatus(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    // Rows of [id, status, mealType, createdAt, totalAmount] for bulk status changes
+    @Query("SELECT o.id, o.status, o.mealType, o.createdAt, o.totalAmount FROM MealOrder o WHERE o.id IN :ids")
+    List<Object[]> findStatusRowsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT o.id, o.status, o.mealType, o.createdAt, o.totalAmount FROM MealOrder o " +
+           "WHERE o.mealType = :mealType AND o.status = :status AND o.createdAt >= :start AND o.createdAt < :end")
+    List<Object[]> findStatusRowsByMealTypeAndStatus(@Param("mealType") MenuItem.MealType mealType,
+                                                     @Param("status") MealOrder.OrderStatus status,
+                                                     @Param("start") LocalDateTime start,
+                                                     @Param("end") LocalDateTime end,
+                                                     Limit limit);
+    
+    // Rows of [orderId, menuItemId]
+    @Query("SELECT o.id, i.id FROM MealOrder o JOIN o.menuItems i WHERE o.id IN :ids")
+    List<Object[]> findMenuItemIdsByOrderIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Only succeeds if the order is still in the status the caller read; the context is cleared
+    // so the caller's now-stale entity is never flushed over the new row
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE MealOrder o SET o.status = :target, o.updatedAt = :now WHERE o.id = :id AND o.status = :expected")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expected") MealOrder.OrderStatus expected,
+                            @Param("target") MealOrder.OrderStatus target,
+                            @Param("now") LocalDateTime now);
 }
@@ -1,13 +1,20 @@
 package com.example.MessMate.repository;
 
 import com.example.MessMate.entity.MessPass;
+import com.example.MessMate.entity.PassBalanceSnapshot;
 import com.example.MessMate.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MessPassRepository extends JpaRepository<MessPass, Long> {
@@ -20,5 +27,26 @@ public interface MessPassRepository extends JpaRepository<MessPass, Long> {
     
     List<MessPass> findByValidUntilBeforeAndIsActiveTrue(LocalDate date);
     
+    List<MessPass> findByIsActiveTrue();
+    
     boolean existsByUserAndIsActiveTrue(User user);
+    
+    // Offline snapshot rows: [passNumber, validFrom, validUntil, isActive, balance] in byte order of pass_number,
+    // with the balance taken from the ledger. Streamed through a server-side cursor, so callers must hold a
+    // transaction and close the stream.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(value = "SELECT p.pass_number, p.valid_from, p.valid_until, p.is_active, " +
+            PassBalanceSnapshot.BALANCE_EXPRESSION + " AS balance " +
+            "FROM mess_passes p LEFT JOIN pass_balance_snapshots s ON s.pass_id = p.id " +
+            "WHERE p.is_active = true ORDER BY p.pass_number COLLATE \"C\"", nativeQuery = true)
+    Stream<Object[]> streamActiveForSnapshot();
+    
+    // Passes whose row or ledger changed after :since
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(value = "SELECT p.pass_number, p.valid_from, p.valid_until, p.is_active, " +
+            PassBalanceSnapshot.BALANCE_EXPRESSION + " AS balance " +
+            "FROM mess_passes p LEFT JOIN pass_balance_snapshots s ON s.pass_id = p.id " +
+            "WHERE p.updated_at > :since OR p.id IN (SELECT e.pass_id FROM pass_ledger e WHERE e.created_at > :since) " +
+            "ORDER BY p.pass_number COLLATE \"C\"", nativeQuery = true)
+    Stream<Object[]> streamChangedForSnapshot(@Param("since") LocalDateTime since);
 }
@@ -2,7 +2,10 @@ package com.example.MessMate.repository;
 
 import com.example.MessMate.entity.Payment;
 import com.example.MessMate.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -12,9 +15,26 @@ import java.util.Optional;
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
-    List<Payment> findByUserOrderByCreatedAtDesc(User user);
+    // Keyset pages ordered by (createdAt, id) descending, backed by idx_payments_user_created
+    @Query("SELECT p FROM Payment p WHERE p.user = :user ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findPageByUser(@Param("user") User user, Limit limit);
     
-    List<Payment> findByStatus(Payment.PaymentStatus status);
+    @Query("SELECT p FROM Payment p WHERE p.user = :user " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findPageByUserBefore(@Param("user") User user, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Limit limit);
+    
+    // Keyset pages backed by idx_payments_status_created
+    @Query("SELECT p FROM Payment p WHERE p.status = :status ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findPageByStatus(@Param("status") Payment.PaymentStatus status, Limit limit);
+    
+    @Query("SELECT p FROM Payment p WHERE p.status = :status " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findPageByStatusBefore(@Param("status") Payment.PaymentStatus status,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, Limit limit);
     
     Optional<Payment> findByTransactionId(String transactionId);
     
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -42,4 +43,30 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     
     // Count students by hostel
     long countByHostel(String hostel);
+    
+    // Emails of students already holding this email or roll number, for signup in one round trip
+    @Query("SELECT s.email FROM Student s WHERE s.email = :email OR s.rollNumber = :rollNumber")
+    List<String> findConflictingEmails(@Param("email") String email, @Param("rollNumber") String rollNumber);
+    
+    // Set-based uniqueness checks for bulk import
+    @Query("SELECT s.email FROM Student s WHERE s.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    @Query("SELECT s.rollNumber FROM Student s WHERE s.rollNumber IN :rollNumbers")
+    List<String> findExistingRollNumbers(@Param("rollNumbers") Collection<String> rollNumbers);
+    
+    List<Student> findByEmailIn(Collection<String> emails);
+    
+    // Id and active flag only, for the identity cache
+    @Query("SELECT s.id AS id, s.isActive AS active FROM Student s WHERE s.email = :email")
+    Optional<StudentIdentity> findIdentityByEmail(@Param("email") String email);
+    
+    @Query("SELECT s.email FROM Student s WHERE s.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+    
+    interface StudentIdentity {
+        Long getId();
+        
+        Boolean getActive();
+    }
 }
@@ -2,8 +2,11 @@ package com.example.MessMate.repository;
 
 import com.example.MessMate.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +19,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     
     boolean existsByRollNumber(String rollNumber);
+    
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+    
+    // Emails of accounts already holding this email or roll number, for signup in one round trip
+    @Query("SELECT u.email FROM User u WHERE u.email = :email OR u.rollNumber = :rollNumber")
+    List<String> findConflictingEmails(@Param("email") String email, @Param("rollNumber") String rollNumber);
 }
\ No newline at end of file
@@ -0,0 +1,339 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.StatsRangeResponse;
+import com.example.MessMate.entity.DailyRollup;
+import com.example.MessMate.entity.MealOrder;
+import com.example.MessMate.entity.MenuItem;
+import com.example.MessMate.entity.Payment;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains daily_rollups: per day, order counts / items / revenue by meal
+ * type and completed payment counts / amounts by payment type.
+ *
+ * Order and payment writes only bump in-memory deltas after they commit; a
+ * scheduled flush folds them into the table with one batched upsert, so
+ * meal-time writers never queue on the same hot summary row. A crash loses
+ * at most one flush interval; the chunked backfill rebuilds it from the raw
+ * tables for any closed day, so today's share can be rebuilt from tomorrow.
+ *
+ * Closed days still change: an old order is cancelled, or the reconciler
+ * settles an old payment. Each backfill chunk therefore takes FOR SHARE
+ * locks on the raw rows of its days, so such writers wait until it commits,
+ * and before committing drops the pending deltas for those days, which
+ * belong to changes its INSERT ... SELECT already counted. Today is not
+ * backfilled: new orders and payments are inserted, and new rows cannot be
+ * locked in advance. The startup backfill holds an advisory lock so
+ * instances starting together do not both run it.
+ */
+@Service
+public class DailyRollupService {
+
+    private static final long BACKFILL_LOCK_KEY = 0x524F_4C4C_5550L;
+
+    private static final String UPSERT = "INSERT INTO daily_rollups (rollup_date, meal_type, payment_type, order_count, " +
+            "item_count, order_revenue, payment_count, payment_amount, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (rollup_date, meal_type, payment_type) DO UPDATE SET " +
+            "order_count = daily_rollups.order_count + EXCLUDED.order_count, " +
+            "item_count = daily_rollups.item_count + EXCLUDED.item_count, " +
+            "order_revenue = daily_rollups.order_revenue + EXCLUDED.order_revenue, " +
+            "payment_count = daily_rollups.payment_count + EXCLUDED.payment_count, " +
+            "payment_amount = daily_rollups.payment_amount + EXCLUDED.payment_amount, updated_at = now()";
+
+    private static final String BACKFILL_ORDERS = "INSERT INTO daily_rollups (rollup_date, meal_type, payment_type, " +
+            "order_count, item_count, order_revenue, payment_count, payment_amount, updated_at) " +
+            "SELECT CAST(o.created_at AS date), o.meal_type, 'ALL', COUNT(*), COALESCE(SUM(i.items), 0), " +
+            "COALESCE(SUM(o.total_amount), 0), 0, 0, now() FROM meal_orders o " +
+            "LEFT JOIN LATERAL (SELECT COUNT(*) AS items FROM order_menu_items m WHERE m.order_id = o.id) i ON true " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND o.status <> 'CANCELLED' GROUP BY 1, 2";
+
+    private static final String BACKFILL_PAYMENTS = "INSERT INTO daily_rollups (rollup_date, meal_type, payment_type, " +
+            "order_count, item_count, order_revenue, payment_count, payment_amount, updated_at) " +
+            "SELECT CAST(created_at AS date), 'ALL', payment_type, 0, 0, 0, COUNT(*), SUM(amount), now() FROM payments " +
+            "WHERE created_at >= ? AND created_at < ? AND status = 'COMPLETED' GROUP BY 1, 3";
+
+    // Writers that change rows of these days (cancels, settles) wait until the chunk commits
+    private static final String LOCK_ORDERS = "SELECT COUNT(*) FROM (SELECT 1 FROM meal_orders " +
+            "WHERE created_at >= ? AND created_at < ? ORDER BY id FOR SHARE) locked";
+
+    private static final String LOCK_PAYMENTS = "SELECT COUNT(*) FROM (SELECT 1 FROM payments " +
+            "WHERE created_at >= ? AND created_at < ? ORDER BY id FOR SHARE) locked";
+
+    private static final String RANGE = "SELECT rollup_date, meal_type, payment_type, order_count, item_count, " +
+            "order_revenue, payment_count, payment_amount FROM daily_rollups WHERE rollup_date BETWEEN ? AND ? " +
+            "ORDER BY rollup_date, meal_type, payment_type";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillChunkDays;
+    private final Map<Key, Delta> pending = new ConcurrentHashMap<>();
+
+    public DailyRollupService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              @Value("${app.rollups.backfill-chunk-days:7}") int backfillChunkDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillChunkDays = backfillChunkDays;
+    }
+
+    public void orderPlaced(MealOrder order) {
+        int items = order.getMenuItems() == null ? 0 : order.getMenuItems().size();
+        orderDelta(order.getMealType(), order.getCreatedAt(), 1, items, order.getTotalAmount());
+    }
+
+    public void orderCancelled(MenuItem.MealType mealType, LocalDateTime createdAt, int itemCount, BigDecimal totalAmount) {
+        orderDelta(mealType, createdAt, -1, -itemCount, totalAmount == null ? null : totalAmount.negate());
+    }
+
+    public void paymentCompleted(Payment payment) {
+        paymentDelta(payment, 1);
+    }
+
+    // A completed payment later failed or refunded no longer counts
+    public void paymentReversed(Payment payment) {
+        paymentDelta(payment, -1);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rollups.flush-ms:5000}")
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        List<Map.Entry<Key, long[]>> taken = new ArrayList<>();
+        for (Map.Entry<Key, Delta> entry : pending.entrySet()) {
+            long[] values = entry.getValue().drain();
+            if (values == null) {
+                continue;
+            }
+            Key key = entry.getKey();
+            batch.add(new Object[]{Date.valueOf(key.date()), key.mealType(), key.paymentType(), values[0], values[1],
+                    MenuPriceTable.fromPaise(values[2]), values[3], MenuPriceTable.fromPaise(values[4])});
+            taken.add(Map.entry(key, values));
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT, batch);
+        } catch (RuntimeException e) {
+            // Put the amounts back so the next flush retries them
+            taken.forEach(entry -> delta(entry.getKey()).add(entry.getValue()));
+            System.out.println("Daily rollup flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!isEmpty()) {
+            return;
+        }
+        // A session lock on a connection held for the whole run; the chunks commit on their own connections
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                lock.setLong(1, BACKFILL_LOCK_KEY);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        return null;
+                    }
+                }
+            }
+            try {
+                // Another instance may have finished the backfill while we were starting
+                if (isEmpty()) {
+                    backfillClosedDays();
+                }
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, BACKFILL_LOCK_KEY);
+                    unlock.execute();
+                }
+            }
+            return null;
+        });
+    }
+
+    private boolean isEmpty() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM daily_rollups)", Boolean.class));
+    }
+
+    private void backfillClosedDays() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT LEAST((SELECT MIN(created_at) FROM meal_orders), " +
+                "(SELECT MIN(created_at) FROM payments))", Timestamp.class);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (first != null && !first.toLocalDateTime().toLocalDate().isAfter(yesterday)) {
+            int days = backfill(first.toLocalDateTime().toLocalDate(), yesterday);
+            System.out.println("Backfilled daily rollups for " + days + " days");
+        }
+    }
+
+    // Recomputes [from, to] from the raw tables, one short transaction per chunk of days
+    public synchronized int backfill(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+        if (!to.isBefore(LocalDate.now())) {
+            throw new RuntimeException("Backfill covers days before today only; today is kept by the live counters");
+        }
+        int days = 0;
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.plusDays(backfillChunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(backfillChunkDays);
+            if (chunkEnd.isAfter(to.plusDays(1))) {
+                chunkEnd = to.plusDays(1);
+            }
+            Date startDate = Date.valueOf(chunkStart);
+            Date endDate = Date.valueOf(chunkEnd);
+            Timestamp start = Timestamp.valueOf(chunkStart.atStartOfDay());
+            Timestamp end = Timestamp.valueOf(chunkEnd.atStartOfDay());
+            LocalDate first = chunkStart;
+            LocalDate last = chunkEnd.minusDays(1);
+            List<Map.Entry<Key, long[]>> discarded = new ArrayList<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject(LOCK_ORDERS, Long.class, start, end);
+                    jdbcTemplate.queryForObject(LOCK_PAYMENTS, Long.class, start, end);
+                    jdbcTemplate.update("DELETE FROM daily_rollups WHERE rollup_date >= ? AND rollup_date < ?",
+                            startDate, endDate);
+                    jdbcTemplate.update(BACKFILL_ORDERS, start, end);
+                    jdbcTemplate.update(BACKFILL_PAYMENTS, start, end);
+                    // Still holding the locks: every pending delta for these days is already in the recompute
+                    discarded.addAll(drain(first, last));
+                });
+            } catch (RuntimeException e) {
+                // The recompute rolled back, so the deltas still count
+                discarded.forEach(entry -> delta(entry.getKey()).add(entry.getValue()));
+                throw e;
+            }
+            days += (int) (chunkEnd.toEpochDay() - chunkStart.toEpochDay());
+        }
+        return days;
+    }
+
+    public StatsRangeResponse getRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+        Map<LocalDate, StatsRangeResponse.Day> days = new TreeMap<>();
+        StatsRangeResponse.Totals overall = new StatsRangeResponse.Totals();
+        jdbcTemplate.query(RANGE, rs -> {
+            LocalDate date = rs.getDate("rollup_date").toLocalDate();
+            StatsRangeResponse.Day day = days.computeIfAbsent(date, d -> new StatsRangeResponse.Day(
+                    d, new StatsRangeResponse.Totals(), new LinkedHashMap<>(), new LinkedHashMap<>()));
+
+            StatsRangeResponse.Totals row = new StatsRangeResponse.Totals();
+            row.setOrderCount(rs.getLong("order_count"));
+            row.setItemCount(rs.getLong("item_count"));
+            row.setOrderRevenue(rs.getBigDecimal("order_revenue"));
+            row.setPaymentCount(rs.getLong("payment_count"));
+            row.setPaymentAmount(rs.getBigDecimal("payment_amount"));
+            String mealType = rs.getString("meal_type");
+            String paymentType = rs.getString("payment_type");
+            if (Payment.PaymentType.MESS_PASS_RECHARGE.name().equals(paymentType)) {
+                row.setRechargeTotal(row.getPaymentAmount());
+            }
+
+            if (!DailyRollup.ALL.equals(mealType)) {
+                day.getByMealType().put(mealType, row);
+            }
+            if (!DailyRollup.ALL.equals(paymentType)) {
+                day.getByPaymentType().put(paymentType, row);
+            }
+            day.getTotals().add(row);
+            overall.add(row);
+        }, Date.valueOf(from), Date.valueOf(to));
+        return new StatsRangeResponse(from, to, overall, new ArrayList<>(days.values()));
+    }
+
+    private void orderDelta(MenuItem.MealType mealType, LocalDateTime createdAt, long orders, long items,
+                            BigDecimal revenue) {
+        if (mealType == null) {
+            return;
+        }
+        Key key = new Key(day(createdAt), mealType.name(), DailyRollup.ALL);
+        delta(key).add(new long[]{orders, items, revenue == null ? 0 : MenuPriceTable.toPaise(revenue), 0, 0});
+    }
+
+    private void paymentDelta(Payment payment, long sign) {
+        if (payment.getPaymentType() == null || payment.getAmount() == null) {
+            return;
+        }
+        Key key = new Key(day(payment.getCreatedAt()), DailyRollup.ALL, payment.getPaymentType().name());
+        delta(key).add(new long[]{0, 0, 0, sign, sign * MenuPriceTable.toPaise(payment.getAmount())});
+    }
+
+    private List<Map.Entry<Key, long[]>> drain(LocalDate first, LocalDate last) {
+        List<Map.Entry<Key, long[]>> drained = new ArrayList<>();
+        for (Map.Entry<Key, Delta> entry : pending.entrySet()) {
+            LocalDate date = entry.getKey().date();
+            if (date.isBefore(first) || date.isAfter(last)) {
+                continue;
+            }
+            long[] values = entry.getValue().drain();
+            if (values != null) {
+                drained.add(Map.entry(entry.getKey(), values));
+            }
+        }
+        return drained;
+    }
+
+    private Delta delta(Key key) {
+        return pending.computeIfAbsent(key, k -> new Delta());
+    }
+
+    private static LocalDate day(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toLocalDate() : LocalDate.now();
+    }
+
+    private record Key(LocalDate date, String mealType, String paymentType) {
+    }
+
+    // orders, items, revenue (paise), payments, payment amount (paise)
+    private static final class Delta {
+        private final AtomicLong[] values = {new AtomicLong(), new AtomicLong(), new AtomicLong(),
+                new AtomicLong(), new AtomicLong()};
+
+        private void add(long[] amounts) {
+            for (int i = 0; i < values.length; i++) {
+                if (amounts[i] != 0) {
+                    values[i].addAndGet(amounts[i]);
+                }
+            }
+        }
+
+        private long[] drain() {
+            long[] drained = new long[values.length];
+            boolean any = false;
+            for (int i = 0; i < values.length; i++) {
+                drained[i] = values[i].getAndSet(0);
+                any |= drained[i] != 0;
+            }
+            return any ? drained : null;
+        }
+    }
+}
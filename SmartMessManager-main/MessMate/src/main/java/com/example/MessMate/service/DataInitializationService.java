@@ -17,6 +17,7 @@ import java.util.List;
 public class DataInitializationService implements CommandLineRunner {
     
     private final MenuItemRepository menuItemRepository;
+    private final MenuCatalogCache menuCatalogCache;
     
     @Override
     public void run(String... args) throws Exception {
@@ -78,6 +79,7 @@ public class DataInitializationService implements CommandLineRunner {
             );
             
             menuItemRepository.saveAll(menuItems);
+            menuCatalogCache.invalidate();
             System.out.println("Sample menu items initialized successfully!");
         }
     }
@@ -0,0 +1,83 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.Payment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gateway backed by a settlement file of "transactionId,STATUS" lines, as
+ * exported by the payment provider at end of day (also handy as a stub in
+ * tests and local runs). The file is re-read whenever it changes; a missing
+ * file means nothing has settled yet.
+ */
+@Component
+public class FileSettlementGateway implements PaymentGateway {
+
+    private final Path file;
+
+    private FileTime loadedAt;
+    private Map<String, Payment.PaymentStatus> settled = Map.of();
+
+    public FileSettlementGateway(@Value("${app.reconciliation.settlement-file:settlements.csv}") String file) {
+        this.file = Paths.get(file);
+    }
+
+    @Override
+    public Map<String, Payment.PaymentStatus> lookup(List<String> transactionIds) {
+        Map<String, Payment.PaymentStatus> current = settlements();
+        Map<String, Payment.PaymentStatus> result = new HashMap<>();
+        for (String transactionId : transactionIds) {
+            Payment.PaymentStatus status = current.get(transactionId);
+            if (status != null) {
+                result.put(transactionId, status);
+            }
+        }
+        return result;
+    }
+
+    private synchronized Map<String, Payment.PaymentStatus> settlements() {
+        try {
+            if (!Files.exists(file)) {
+                return Map.of();
+            }
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (!modified.equals(loadedAt)) {
+                settled = parse(file);
+                loadedAt = modified;
+            }
+            return settled;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read settlement file " + file, e);
+        }
+    }
+
+    static Map<String, Payment.PaymentStatus> parse(Path file) throws IOException {
+        Map<String, Payment.PaymentStatus> statuses = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma <= 0 || line.startsWith("#")) {
+                    continue;
+                }
+                String status = line.substring(comma + 1).trim().toUpperCase();
+                if (status.equals("COMPLETED") || status.equals("FAILED")) {
+                    statuses.put(line.substring(0, comma).trim(), Payment.PaymentStatus.valueOf(status));
+                }
+            }
+        }
+        return statuses;
+    }
+}
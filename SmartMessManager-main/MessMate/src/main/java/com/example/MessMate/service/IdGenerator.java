@@ -0,0 +1,13 @@
+package com.example.MessMate.service;
+
+/**
+ * Source of unique, time-ordered identifiers for business keys such as pass
+ * numbers and transaction ids.
+ */
+public interface IdGenerator {
+
+    long nextId();
+
+    // Prefix followed by the id in a fixed-width, lexicographically sortable encoding
+    String nextId(String prefix);
+}
@@ -0,0 +1,224 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.ApiResponse;
+import com.example.MessMate.entity.IdempotencyRecord;
+import com.example.MessMate.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response for writes retried with the same Idempotency-Key.
+ *
+ * The key row is claimed (INSERT ... ON CONFLICT DO NOTHING, state PENDING)
+ * before the action runs, and the action and the stored response commit in
+ * that same transaction. A duplicate on another instance blocks on the
+ * claim until the first commits and then replays its answer; if the first
+ * rolls back, or the action fails, the key is free again and nothing was
+ * written. Actions must therefore do their writes in the caller's
+ * transaction rather than handing them to another thread.
+ *
+ * Completed responses also sit in a bounded LRU, so a replay on the same
+ * instance normally costs one map lookup, and concurrent duplicates there
+ * wait for the first one and share its result. Keys are namespaced by the
+ * caller, and each record keeps a hash of the request it answered: a key
+ * reused for a different request is refused instead of replaying someone
+ * else's response. Records expire after ttl-hours, after which the key can
+ * be used again, and are purged on a schedule.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, StoredResponse> recent;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlHours;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlHours = ttlHours;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // owner identifies the caller (principal id, or the account named in the request); request is what was asked
+    public ResponseEntity<ApiResponse> execute(String scope, String owner, String key, Object request,
+                                               Supplier<ResponseEntity<ApiResponse>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 128) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Idempotency-Key must be at most 128 characters"));
+        }
+        String recordKey = scope + ":" + sha256(owner + "\n" + key);
+        String requestHash = sha256(toJson(request));
+
+        StoredResponse cached = recent.get(recordKey);
+        if (cached != null && cached.isLive()) {
+            return cached.replayFor(requestHash);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(recordKey, mine);
+        if (running != null) {
+            StoredResponse shared = awaitDuplicate(running);
+            // Nothing stored means the first attempt rolled back and released the key, so this one runs
+            if (shared != null) {
+                return shared.replayFor(requestHash);
+            }
+            inFlight.remove(recordKey, running);
+            return execute(scope, owner, key, request, action);
+        }
+
+        try {
+            Outcome outcome = transactionTemplate.execute(status -> {
+                LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+                if (idempotencyRecordRepository.claim(recordKey, requestHash, expiresAt) == 0) {
+                    StoredResponse persisted = idempotencyRecordRepository.findByRecordKey(recordKey)
+                            .filter(record -> record.getState() == IdempotencyRecord.State.COMPLETED)
+                            .map(this::fromRecord)
+                            .orElse(null);
+                    return new Outcome(null, persisted);
+                }
+
+                ResponseEntity<ApiResponse> response = action.get();
+                // A failed write (already marked rollback-only) or a server-side error is worth retrying,
+                // so the key is released with the work instead of remembering the failure
+                if (status.isRollbackOnly() || response.getStatusCode().is5xxServerError()) {
+                    status.setRollbackOnly();
+                    return new Outcome(response, null);
+                }
+                StoredResponse stored = new StoredResponse(response.getStatusCode().value(), response.getBody(),
+                        requestHash, expiresAt);
+                idempotencyRecordRepository.complete(recordKey, IdempotencyRecord.State.COMPLETED, stored.status(),
+                        toJson(stored.body()));
+                return new Outcome(response, stored);
+            });
+
+            if (outcome.stored() != null) {
+                recent.put(recordKey, outcome.stored());
+            }
+            mine.complete(outcome.stored());
+            if (outcome.response() != null) {
+                return outcome.response();
+            }
+            return outcome.stored() != null ? outcome.stored().replayFor(requestHash) : stillRunning();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(recordKey, mine);
+        }
+    }
+
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 20 * * * *}")
+    public void purgeExpired() {
+        long start = System.currentTimeMillis();
+        int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            System.out.println("Purged " + purged + " expired idempotency keys in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    private StoredResponse awaitDuplicate(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+        }
+    }
+
+    private StoredResponse fromRecord(IdempotencyRecord record) {
+        try {
+            JsonNode body = objectMapper.readTree(record.getResponseBody());
+            JsonNode data = body.get("data");
+            ApiResponse response = new ApiResponse(
+                    body.path("success").asBoolean(),
+                    body.path("message").asText(null),
+                    data == null || data.isNull() ? null : data);
+            return new StoredResponse(record.getStatusCode(), response, record.getRequestHash(), record.getExpiresAt());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read idempotent response", e);
+        }
+    }
+
+    private String toJson(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialise idempotent request or response", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HEX.formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // The claim lost to a row that is not COMPLETED, which a committed claim never leaves behind
+    private static ResponseEntity<ApiResponse> stillRunning() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("A request with this Idempotency-Key is still being processed"));
+    }
+
+    private record Outcome(ResponseEntity<ApiResponse> response, StoredResponse stored) {
+    }
+
+    private record StoredResponse(int status, ApiResponse body, String requestHash, LocalDateTime expiresAt) {
+
+        boolean isLive() {
+            return expiresAt.isAfter(LocalDateTime.now());
+        }
+
+        ResponseEntity<ApiResponse> replayFor(String hash) {
+            if (!requestHash.equals(hash)) {
+                return ResponseEntity.unprocessableEntity()
+                        .body(ApiResponse.error("Idempotency-Key was already used for a different request"));
+            }
+            return ResponseEntity.status(status).header(REPLAYED_HEADER, "true").body(body);
+        }
+    }
+}
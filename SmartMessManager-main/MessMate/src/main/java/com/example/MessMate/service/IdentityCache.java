@@ -0,0 +1,166 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.Student;
+import com.example.MessMate.entity.User;
+import com.example.MessMate.repository.StudentRepository;
+import com.example.MessMate.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Email -> id lookups for both account models.
+ *
+ * Order, payment and pass endpoints only need the account id to filter their
+ * real query by, so resolving it here saves a users round trip per request.
+ * Students own none of those rows; their map serves login, which can turn
+ * away unknown and deactivated emails without loading the full row.
+ * Only accounts that exist are cached; entries expire after ttl-seconds and
+ * each map holds at most max-entries, so a missed invalidation heals on its
+ * own. Signup, login, activate and deactivate refresh or evict the affected
+ * entries directly.
+ */
+@Component
+public class IdentityCache {
+
+    public record Identity(Long id, boolean active) {
+    }
+
+    private final Lookup usersByEmail;
+    private final Lookup studentsByEmail;
+
+    public IdentityCache(UserRepository userRepository,
+                         StudentRepository studentRepository,
+                         @Value("${app.identity-cache.ttl-seconds:300}") long ttlSeconds,
+                         @Value("${app.identity-cache.max-entries:10000}") int maxEntries) {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        // Users have no active flag; an existing user is always usable
+        this.usersByEmail = new Lookup(ttlNanos, maxEntries,
+                email -> userRepository.findIdByEmail(email).map(id -> new Identity(id, true)));
+        this.studentsByEmail = new Lookup(ttlNanos, maxEntries,
+                email -> studentRepository.findIdentityByEmail(email)
+                        .map(student -> new Identity(student.getId(), Boolean.TRUE.equals(student.getActive()))));
+    }
+
+    public Optional<Identity> user(String email) {
+        return usersByEmail.get(email);
+    }
+
+    public Optional<Identity> student(String email) {
+        return studentsByEmail.get(email);
+    }
+
+    public void remember(User user) {
+        Identity identity = new Identity(user.getId(), true);
+        usersByEmail.put(user.getEmail(), identity);
+    }
+
+    public void remember(Student student) {
+        Identity identity = new Identity(student.getId(), Boolean.TRUE.equals(student.getIsActive()));
+        studentsByEmail.put(student.getEmail(), identity);
+    }
+
+    public void evict(Student student) {
+        evictStudent(student.getEmail());
+    }
+
+    public void evictStudent(String email) {
+        studentsByEmail.remove(email);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("usersByEmail", usersByEmail.stats());
+        stats.put("studentsByEmail", studentsByEmail.stats());
+        return stats;
+    }
+
+    private static final class Lookup {
+        private final long ttlNanos;
+        private final int maxEntries;
+        private final Function<String, Optional<Identity>> loader;
+        private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private Lookup(long ttlNanos, int maxEntries, Function<String, Optional<Identity>> loader) {
+            this.ttlNanos = ttlNanos;
+            this.maxEntries = maxEntries;
+            this.loader = loader;
+        }
+
+        private Optional<Identity> get(String key) {
+            Optional<Identity> cached = peek(key);
+            if (cached.isPresent() || key == null) {
+                return cached;
+            }
+            Optional<Identity> loaded = loader.apply(key);
+            if (loaded.isPresent()) {
+                put(key, loaded.get());
+            } else {
+                entries.remove(key);
+            }
+            return loaded;
+        }
+
+        private Optional<Identity> peek(String key) {
+            Entry entry = key == null ? null : entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return Optional.of(entry.identity());
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+
+        private void put(String key, Identity identity) {
+            if (key == null || identity.id() == null) {
+                return;
+            }
+            if (entries.size() >= maxEntries) {
+                makeRoom();
+            }
+            entries.put(key, new Entry(identity, System.nanoTime() + ttlNanos));
+        }
+
+        private void remove(String key) {
+            if (key != null) {
+                entries.remove(key);
+            }
+        }
+
+        // Drop expired entries first; if that is not enough, shed an arbitrary eighth of the map
+        private void makeRoom() {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+            if (entries.size() < maxEntries) {
+                return;
+            }
+            int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 8);
+            Iterator<String> keys = entries.keySet().iterator();
+            while (excess-- > 0 && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+
+        private Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("size", entries.size());
+            stats.put("hits", hits.sum());
+            stats.put("misses", misses.sum());
+            return stats;
+        }
+    }
+
+    private record Entry(Identity identity, long expiresAt) {
+    }
+}
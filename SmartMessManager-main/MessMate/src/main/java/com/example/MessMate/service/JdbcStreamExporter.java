@@ -0,0 +1,171 @@
+package com.example.MessMate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streams large result sets straight from a forward-only JDBC cursor to the response.
+ *
+ * The PostgreSQL driver only uses a server-side cursor when auto-commit is off
+ * and a fetch size is set, so every export runs in a read-only transaction and
+ * memory stays at one fetch window no matter how many rows match.
+ */
+@Component
+public class JdbcStreamExporter {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public JdbcStreamExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    // Column labels become the JSON field names, so alias them in the SQL
+    public StreamingResponseBody ndjson(String sql, Object... args) {
+        return out -> stream(out, sql, args, new NdjsonWriter(out));
+    }
+
+    // Header row comes from the column labels as well
+    public StreamingResponseBody csv(String sql, Object... args) {
+        return out -> stream(out, sql, args, new CsvWriter(out));
+    }
+
+    private void stream(OutputStream out, String sql, Object[] args, RowWriter writer) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.query(sql, rs -> {
+                        try {
+                            writer.write(rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, args));
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; stop reading from the cursor
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    static Object columnValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return value;
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+        private final OutputStream out;
+        private final Map<String, Object> row = new LinkedHashMap<>();
+        private String[] labels;
+
+        private NdjsonWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            if (labels == null) {
+                ResultSetMetaData meta = rs.getMetaData();
+                labels = new String[meta.getColumnCount()];
+                for (int i = 0; i < labels.length; i++) {
+                    labels[i] = meta.getColumnLabel(i + 1);
+                }
+            }
+            row.clear();
+            for (int i = 0; i < labels.length; i++) {
+                row.put(labels[i], columnValue(rs, i + 1));
+            }
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final OutputStream out;
+        private final StringBuilder line = new StringBuilder(256);
+        private int columns;
+
+        private CsvWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            line.setLength(0);
+            if (columns == 0) {
+                ResultSetMetaData meta = rs.getMetaData();
+                columns = meta.getColumnCount();
+                for (int i = 1; i <= columns; i++) {
+                    appendField(meta.getColumnLabel(i), i);
+                }
+                line.append("\r\n");
+            }
+            for (int i = 1; i <= columns; i++) {
+                Object value = columnValue(rs, i);
+                appendField(value instanceof BigDecimal decimal ? decimal.toPlainString()
+                        : value == null ? "" : value.toString(), i);
+            }
+            line.append("\r\n");
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        // RFC 4180 quoting, only when the value needs it
+        private void appendField(String value, int column) {
+            if (column > 1) {
+                line.append(',');
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+    }
+}
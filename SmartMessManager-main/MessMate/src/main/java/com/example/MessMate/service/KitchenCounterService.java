@@ -0,0 +1,210 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.KitchenSummaryResponse;
+import com.example.MessMate.entity.MealOrder;
+import com.example.MessMate.entity.MenuItem;
+import com.example.MessMate.repository.MealOrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live plate counts for today's orders, keyed by meal type, menu item and status.
+ *
+ * Counters are seeded from two aggregate queries the first time they are
+ * needed and afterwards only move through the create / status-change
+ * callbacks from OrderService. At midnight a fresh, empty day is started, so
+ * kitchen screens polling the summary never scan meal_orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class KitchenCounterService {
+
+    private static final MealOrder.OrderStatus[] STATUSES = MealOrder.OrderStatus.values();
+
+    private final MealOrderRepository mealOrderRepository;
+    private final MenuCatalogCache menuCatalogCache;
+
+    private volatile DayCounters current;
+
+    // Seed before traffic arrives so the first orders are not counted twice
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        today();
+    }
+
+    public void onOrderCreated(MealOrder order) {
+        if (order.getMealType() == null || order.getStatus() == null) {
+            return;
+        }
+        DayCounters counters = countersFor(order);
+        if (counters != null) {
+            counters.meal(order.getMealType()).add(order.getStatus(), menuItemIds(order), 1);
+        }
+    }
+
+    public void onStatusChanged(MealOrder order, MealOrder.OrderStatus from, MealOrder.OrderStatus to) {
+        onStatusChanged(order.getMealType(), order.getCreatedAt(), menuItemIds(order), from, to);
+    }
+
+    public void onStatusChanged(MenuItem.MealType mealType, LocalDateTime createdAt, List<Long> menuItemIds,
+                                MealOrder.OrderStatus from, MealOrder.OrderStatus to) {
+        if (mealType == null || from == to) {
+            return;
+        }
+        DayCounters counters = countersFor(createdAt);
+        if (counters != null) {
+            MealCounters meal = counters.meal(mealType);
+            meal.add(from, menuItemIds, -1);
+            meal.add(to, menuItemIds, 1);
+        }
+    }
+
+    public KitchenSummaryResponse getSummary(MenuItem.MealType mealType) {
+        DayCounters counters = today();
+        MealCounters meal = counters.meal(mealType);
+        Map<Long, MenuItem> catalog = menuCatalogCache.snapshot().itemsById();
+
+        Map<MealOrder.OrderStatus, Long> ordersByStatus = new EnumMap<>(MealOrder.OrderStatus.class);
+        long totalOrders = 0;
+        for (MealOrder.OrderStatus status : STATUSES) {
+            long count = meal.orders[status.ordinal()].sum();
+            ordersByStatus.put(status, count);
+            totalOrders += count;
+        }
+
+        List<KitchenSummaryResponse.ItemCount> items = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder[]> entry : meal.items.entrySet()) {
+            Map<MealOrder.OrderStatus, Long> byStatus = new EnumMap<>(MealOrder.OrderStatus.class);
+            long total = 0;
+            for (MealOrder.OrderStatus status : STATUSES) {
+                long count = entry.getValue()[status.ordinal()].sum();
+                if (count != 0) {
+                    byStatus.put(status, count);
+                    total += count;
+                }
+            }
+            if (total == 0) {
+                continue;
+            }
+            MenuItem item = catalog.get(entry.getKey());
+            items.add(new KitchenSummaryResponse.ItemCount(entry.getKey(), item != null ? item.getName() : null, total, byStatus));
+        }
+        items.sort(Comparator.comparing(KitchenSummaryResponse.ItemCount::getTotal).reversed());
+
+        return new KitchenSummaryResponse(counters.date, mealType, totalOrders, ordersByStatus, items);
+    }
+
+    private DayCounters countersFor(MealOrder order) {
+        // Orders saved without a timestamp yet are being created right now
+        return countersFor(order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now());
+    }
+
+    private DayCounters countersFor(LocalDateTime createdAt) {
+        DayCounters counters = today();
+        if (createdAt == null || !createdAt.toLocalDate().equals(counters.date)) {
+            return null;
+        }
+        return counters;
+    }
+
+    private DayCounters today() {
+        LocalDate date = LocalDate.now();
+        DayCounters counters = current;
+        if (counters != null && counters.date.equals(date)) {
+            return counters;
+        }
+        synchronized (this) {
+            counters = current;
+            if (counters != null && counters.date.equals(date)) {
+                return counters;
+            }
+            // A day that starts while we are running has no orders yet; only a cold start needs the database
+            counters = new DayCounters(date);
+            if (current == null) {
+                seed(counters);
+            }
+            current = counters;
+            return counters;
+        }
+    }
+
+    private void seed(DayCounters counters) {
+        LocalDateTime start = counters.date.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+        for (Object[] row : mealOrderRepository.countOrdersByMealTypeAndStatus(start, end)) {
+            MealCounters meal = counters.meal((MenuItem.MealType) row[0]);
+            meal.orders[((MealOrder.OrderStatus) row[1]).ordinal()].add((Long) row[2]);
+        }
+        for (Object[] row : mealOrderRepository.countItemsByMealTypeAndStatus(start, end)) {
+            MealCounters meal = counters.meal((MenuItem.MealType) row[0]);
+            meal.item((Long) row[1])[((MealOrder.OrderStatus) row[2]).ordinal()].add((Long) row[3]);
+        }
+    }
+
+    private static List<Long> menuItemIds(MealOrder order) {
+        Collection<MenuItem> items = order.getMenuItems();
+        if (items == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(items.size());
+        for (MenuItem item : items) {
+            if (item != null && item.getId() != null) {
+                ids.add(item.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static final class DayCounters {
+        private final LocalDate date;
+        private final Map<MenuItem.MealType, MealCounters> meals = new EnumMap<>(MenuItem.MealType.class);
+
+        private DayCounters(LocalDate date) {
+            this.date = date;
+            for (MenuItem.MealType mealType : MenuItem.MealType.values()) {
+                meals.put(mealType, new MealCounters());
+            }
+        }
+
+        private MealCounters meal(MenuItem.MealType mealType) {
+            return meals.get(mealType);
+        }
+    }
+
+    private static final class MealCounters {
+        private final LongAdder[] orders = newAdders();
+        private final Map<Long, LongAdder[]> items = new ConcurrentHashMap<>();
+
+        private LongAdder[] item(Long menuItemId) {
+            return items.computeIfAbsent(menuItemId, id -> newAdders());
+        }
+
+        private void add(MealOrder.OrderStatus status, List<Long> menuItemIds, int delta) {
+            orders[status.ordinal()].add(delta);
+            for (Long menuItemId : menuItemIds) {
+                item(menuItemId)[status.ordinal()].add(delta);
+            }
+        }
+
+        private static LongAdder[] newAdders() {
+            LongAdder[] adders = new LongAdder[STATUSES.length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+    }
+}
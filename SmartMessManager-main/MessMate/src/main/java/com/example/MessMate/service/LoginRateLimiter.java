@@ -0,0 +1,117 @@
+package com.example.MessMate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per account and per client address for sign-in attempts.
+ *
+ * Checked before any password is hashed, so guessing at one account or
+ * hammering from one address is turned away for the cost of a map lookup.
+ * Buckets refill continuously up to their per-minute allowance and are
+ * dropped once they have been idle long enough to be full again.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int perAccountPerMinute;
+    private final int perAddressPerMinute;
+    private final LongSupplier clock;
+    private final Map<String, Bucket> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> addresses = new ConcurrentHashMap<>();
+
+    private final LongAdder limitedByAccount = new LongAdder();
+    private final LongAdder limitedByAddress = new LongAdder();
+
+    @Autowired
+    public LoginRateLimiter(@Value("${app.auth.rate-limit.per-account-per-minute:10}") int perAccountPerMinute,
+                            @Value("${app.auth.rate-limit.per-address-per-minute:60}") int perAddressPerMinute) {
+        this(perAccountPerMinute, perAddressPerMinute, System::nanoTime);
+    }
+
+    LoginRateLimiter(int perAccountPerMinute, int perAddressPerMinute, LongSupplier clock) {
+        this.perAccountPerMinute = perAccountPerMinute;
+        this.perAddressPerMinute = perAddressPerMinute;
+        this.clock = clock;
+    }
+
+    // Either argument may be null (signup has no account yet)
+    public void check(String account, String address) {
+        long now = clock.getAsLong();
+        if (address != null && !bucket(addresses, address, perAddressPerMinute, now).tryTake(now)) {
+            limitedByAddress.increment();
+            throw new TooManyRequestsException("Too many attempts from this address, please wait a minute", 60);
+        }
+        if (account != null && !bucket(accounts, account.toLowerCase(Locale.ROOT), perAccountPerMinute, now).tryTake(now)) {
+            limitedByAccount.increment();
+            throw new TooManyRequestsException("Too many attempts for this account, please wait a minute", 60);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeIdle() {
+        long now = clock.getAsLong();
+        accounts.values().removeIf(bucket -> bucket.isFull(now));
+        addresses.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("perAccountPerMinute", perAccountPerMinute);
+        stats.put("perAddressPerMinute", perAddressPerMinute);
+        stats.put("trackedAccounts", accounts.size());
+        stats.put("trackedAddresses", addresses.size());
+        stats.put("limitedByAccount", limitedByAccount.sum());
+        stats.put("limitedByAddress", limitedByAddress.sum());
+        return stats;
+    }
+
+    private static Bucket bucket(Map<String, Bucket> buckets, String key, int perMinute, long now) {
+        return buckets.computeIfAbsent(key, k -> new Bucket(perMinute, now));
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        private final long nanosPerToken;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(int capacity, long now) {
+            this.capacity = capacity;
+            this.nanosPerToken = MINUTE_NANOS / Math.max(1, capacity);
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        private synchronized boolean tryTake(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / nanosPerToken);
+            refilledAt = now;
+        }
+    }
+}
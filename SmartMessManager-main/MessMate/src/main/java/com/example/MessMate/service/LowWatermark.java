@@ -0,0 +1,38 @@
+package com.example.MessMate.service;
+
+import java.util.TreeMap;
+
+/**
+ * Tracks the highest key below which every chunk has finished, when chunks
+ * are handed out in key order but complete in any order.
+ */
+final class LowWatermark {
+
+    // chunk sequence -> last key of the chunk, or null while it is still running
+    private final TreeMap<Long, Long> chunks = new TreeMap<>();
+    private long nextSequence;
+    private long watermark;
+
+    LowWatermark(long start) {
+        this.watermark = start;
+    }
+
+    synchronized long register() {
+        long sequence = nextSequence++;
+        chunks.put(sequence, null);
+        return sequence;
+    }
+
+    // Returns the new watermark
+    synchronized long complete(long sequence, long lastKey) {
+        chunks.put(sequence, lastKey);
+        while (!chunks.isEmpty() && chunks.firstEntry().getValue() != null) {
+            watermark = chunks.pollFirstEntry().getValue();
+        }
+        return watermark;
+    }
+
+    synchronized long get() {
+        return watermark;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.MenuItem;
+import com.example.MessMate.repository.MenuItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through, in-memory copy of the menu_items table.
+ *
+ * The catalog is held as an immutable, pre-indexed snapshot stamped with the
+ * version it was built from. Writes bump the version; the next read notices the
+ * stale stamp and rebuilds with a single findAll, so readers never block each
+ * other and never need a JDBC connection while the snapshot is current.
+ */
+@Component
+@RequiredArgsConstructor
+public class MenuCatalogCache {
+
+    private final MenuItemRepository menuItemRepository;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null && snapshot.version() == version.get()) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        return rebuild();
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot snapshot = current.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("version", version.get());
+        stats.put("current", snapshot != null && snapshot.version() == version.get());
+        stats.put("items", snapshot != null ? snapshot.allItems().size() : 0);
+        return stats;
+    }
+
+    private Snapshot rebuild() {
+        synchronized (rebuildLock) {
+            // Another reader may have rebuilt while we waited for the lock
+            long stamp = version.get();
+            Snapshot snapshot = current.get();
+            if (snapshot != null && snapshot.version() == stamp) {
+                return snapshot;
+            }
+
+            // A write landing during findAll bumps the version, so the next read rebuilds again
+            snapshot = Snapshot.build(stamp, menuItemRepository.findAll());
+            current.set(snapshot);
+            rebuilds.increment();
+            return snapshot;
+        }
+    }
+
+    public record Snapshot(
+            long version,
+            List<MenuItem> allItems,
+            Map<Long, MenuItem> itemsById,
+            Map<MenuItem.MealType, List<MenuItem>> availableByMealType,
+            Map<MenuItem.FoodCategory, List<MenuItem>> availableByCategory,
+            List<MenuItem> availableVegetarian,
+            TrigramIndex<MenuItem> availableNameIndex,
+            MenuPriceTable priceTable) {
+
+        static Snapshot build(long version, List<MenuItem> items) {
+            Map<Long, MenuItem> byId = new HashMap<>();
+            Map<MenuItem.MealType, List<MenuItem>> byMealType = new EnumMap<>(MenuItem.MealType.class);
+            Map<MenuItem.FoodCategory, List<MenuItem>> byCategory = new EnumMap<>(MenuItem.FoodCategory.class);
+            List<MenuItem> vegetarian = new ArrayList<>();
+            List<MenuItem> available = new ArrayList<>();
+            TrigramIndex<MenuItem> nameIndex = new TrigramIndex<>();
+
+            for (MenuItem item : items) {
+                byId.put(item.getId(), item);
+                if (!Boolean.TRUE.equals(item.getIsAvailable())) {
+                    continue;
+                }
+                available.add(item);
+                if (item.getMealType() != null) {
+                    byMealType.computeIfAbsent(item.getMealType(), k -> new ArrayList<>()).add(item);
+                }
+                if (item.getCategory() != null) {
+                    byCategory.computeIfAbsent(item.getCategory(), k -> new ArrayList<>()).add(item);
+                }
+                if (Boolean.TRUE.equals(item.getIsVegetarian())) {
+                    vegetarian.add(item);
+                }
+                nameIndex.put(item.getId(), item.getName(), item);
+            }
+
+            byMealType.replaceAll((k, v) -> List.copyOf(v));
+            byCategory.replaceAll((k, v) -> List.copyOf(v));
+            return new Snapshot(
+                    version,
+                    List.copyOf(items),
+                    Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableMap(byMealType),
+                    Collections.unmodifiableMap(byCategory),
+                    List.copyOf(vegetarian),
+                    nameIndex,
+                    MenuPriceTable.of(available));
+        }
+
+        public List<MenuItem> availableByMealType(MenuItem.MealType mealType) {
+            return availableByMealType.getOrDefault(mealType, List.of());
+        }
+
+        public List<MenuItem> availableByCategory(MenuItem.FoodCategory category) {
+            return availableByCategory.getOrDefault(category, List.of());
+        }
+
+        public List<MenuItem> searchAvailable(String name) {
+            return availableNameIndex.search(name);
+        }
+    }
+}
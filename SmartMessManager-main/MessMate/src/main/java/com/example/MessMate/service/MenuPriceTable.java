@@ -0,0 +1,59 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.MenuItem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable id -> price lookup for orderable menu items, in paise.
+ *
+ * Prices are kept as parallel primitive arrays sorted by id, so pricing an
+ * order is a few binary searches and long additions with no boxing or
+ * BigDecimal arithmetic until the total is handed to the entity.
+ */
+public final class MenuPriceTable {
+
+    public static final long NOT_ORDERABLE = -1;
+
+    private final long[] ids;
+    private final long[] pricesInPaise;
+
+    private MenuPriceTable(long[] ids, long[] pricesInPaise) {
+        this.ids = ids;
+        this.pricesInPaise = pricesInPaise;
+    }
+
+    static MenuPriceTable of(Collection<MenuItem> availableItems) {
+        MenuItem[] items = availableItems.stream()
+                .filter(item -> item.getId() != null && item.getPrice() != null)
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toArray(MenuItem[]::new);
+        long[] ids = new long[items.length];
+        long[] prices = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            ids[i] = items[i].getId();
+            prices[i] = toPaise(items[i].getPrice());
+        }
+        return new MenuPriceTable(ids, prices);
+    }
+
+    public long priceInPaise(long menuItemId) {
+        int index = Arrays.binarySearch(ids, menuItemId);
+        return index >= 0 ? pricesInPaise[index] : NOT_ORDERABLE;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public static long toPaise(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal fromPaise(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.MessMate.service;
 
+import com.example.MessMate.dto.WeeklyMenuResponse;
+import com.example.MessMate.dto.WeeklyMenuRow;
 import com.example.MessMate.entity.DailyMenu;
 import com.example.MessMate.entity.MenuItem;
 import com.example.MessMate.repository.DailyMenuRepository;
@@ -9,6 +11,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -17,53 +20,74 @@ public class MenuService {
     
     private final MenuItemRepository menuItemRepository;
     private final DailyMenuRepository dailyMenuRepository;
+    private final MenuCatalogCache menuCatalogCache;
+    private final TodaysMenuCache todaysMenuCache;
     
     // MenuItem operations
     public MenuItem createMenuItem(MenuItem menuItem) {
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuCatalogCache.invalidate();
+        todaysMenuCache.invalidate();
+        return saved;
     }
     
+    // Catalog reads are served from the in-memory snapshot
     public List<MenuItem> getAllMenuItems() {
-        return menuItemRepository.findAll();
+        return menuCatalogCache.snapshot().allItems();
     }
     
     public List<MenuItem> getAvailableMenuItemsByMealType(MenuItem.MealType mealType) {
-        return menuItemRepository.findByMealTypeAndIsAvailableTrue(mealType);
+        return menuCatalogCache.snapshot().availableByMealType(mealType);
     }
     
     public List<MenuItem> getMenuItemsByCategory(MenuItem.FoodCategory category) {
-        return menuItemRepository.findByCategoryAndIsAvailableTrue(category);
+        return menuCatalogCache.snapshot().availableByCategory(category);
     }
     
     public List<MenuItem> getVegetarianMenuItems() {
-        return menuItemRepository.findByIsVegetarianAndIsAvailableTrue(true);
+        return menuCatalogCache.snapshot().availableVegetarian();
     }
     
     public List<MenuItem> searchMenuItems(String name) {
-        return menuItemRepository.findByNameContainingIgnoreCaseAndIsAvailableTrue(name);
+        return menuCatalogCache.snapshot().searchAvailable(name);
     }
     
     public Optional<MenuItem> getMenuItemById(Long id) {
-        return menuItemRepository.findById(id);
+        return Optional.ofNullable(menuCatalogCache.snapshot().itemsById().get(id));
     }
     
     public MenuItem updateMenuItem(MenuItem menuItem) {
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuCatalogCache.invalidate();
+        todaysMenuCache.invalidate();
+        return saved;
     }
     
     public void deleteMenuItem(Long id) {
         menuItemRepository.deleteById(id);
+        menuCatalogCache.invalidate();
+        todaysMenuCache.invalidate();
+    }
+    
+    public Map<String, Object> getMenuCacheStats() {
+        return menuCatalogCache.getStats();
     }
     
     // DailyMenu operations
     public DailyMenu createDailyMenu(DailyMenu dailyMenu) {
-        return dailyMenuRepository.save(dailyMenu);
+        DailyMenu saved = dailyMenuRepository.save(dailyMenu);
+        todaysMenuCache.invalidate(saved.getMenuDate());
+        return saved;
     }
     
     public List<DailyMenu> getTodaysMenu() {
         return dailyMenuRepository.findByMenuDateAndIsActiveTrue(LocalDate.now());
     }
     
+    public TodaysMenuCache.RenderedMenu getRenderedTodaysMenu() {
+        return todaysMenuCache.get();
+    }
+    
     public Optional<DailyMenu> getTodaysMenuByMealType(MenuItem.MealType mealType) {
         return dailyMenuRepository.findByMenuDateAndMealTypeAndIsActiveTrue(LocalDate.now(), mealType);
     }
@@ -72,15 +96,23 @@ public class MenuService {
         return dailyMenuRepository.findByMenuDateAndIsActiveTrue(date);
     }
     
-    public List<DailyMenu> getWeeklyMenu(LocalDate startDate, LocalDate endDate) {
-        return dailyMenuRepository.findByMenuDateBetweenAndIsActiveTrue(startDate, endDate);
+    public WeeklyMenuResponse getWeeklyMenu(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+        List<WeeklyMenuRow> rows = dailyMenuRepository.findWeeklyMenuRows(startDate, endDate);
+        return WeeklyMenuResponse.fromRows(startDate, endDate, rows);
     }
     
     public DailyMenu updateDailyMenu(DailyMenu dailyMenu) {
-        return dailyMenuRepository.save(dailyMenu);
+        DailyMenu saved = dailyMenuRepository.save(dailyMenu);
+        // The menu may have been moved away from today, so drop the rendering either way
+        todaysMenuCache.invalidate();
+        return saved;
     }
     
     public void deleteDailyMenu(Long id) {
         dailyMenuRepository.deleteById(id);
+        todaysMenuCache.invalidate();
     }
 }
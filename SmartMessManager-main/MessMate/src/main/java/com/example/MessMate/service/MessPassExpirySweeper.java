@@ -0,0 +1,162 @@
+package com.example.MessMate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deactivates expired mess passes in bulk.
+ *
+ * Each chunk is one UPDATE over at most chunk-size rows, run in its own short
+ * transaction so row locks are never held for the whole sweep. Every chunk
+ * first takes a transaction-scoped advisory lock; when another instance is
+ * already sweeping, this one backs off, and SKIP LOCKED keeps the two from
+ * waiting on each other's rows in the window in between. Cached pass state
+ * is invalidated once, after the last chunk.
+ */
+@Component
+public class MessPassExpirySweeper {
+
+    // Arbitrary application-wide key for pg_try_advisory_xact_lock
+    private static final long ADVISORY_LOCK_KEY = 0x4D50_5357_4545_50L;
+
+    private static final String DEACTIVATE_CHUNK = "UPDATE mess_passes SET is_active = false, updated_at = now() " +
+            "WHERE id IN (SELECT id FROM mess_passes WHERE is_active = true AND valid_until < ? " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING pass_number";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PassValidationIndex passValidationIndex;
+    private final int chunkSize;
+
+    private long runs;
+    private long skippedRuns;
+    private long failedRuns;
+    private long totalDeactivated;
+    private long totalDurationMillis;
+    private long maxDurationMillis;
+    private LocalDateTime lastRunAt;
+    private String lastTrigger;
+    private int lastDeactivated;
+    private int lastChunks;
+    private long lastDurationMillis;
+    private String lastError;
+    private Map<String, Object> lastScheduled;
+
+    public MessPassExpirySweeper(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 PassValidationIndex passValidationIndex,
+                                 @Value("${app.mess-pass.sweep-chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passValidationIndex = passValidationIndex;
+        this.chunkSize = chunkSize;
+    }
+
+    // Outcome, count and duration of the nightly run are kept in getStats() under lastScheduled
+    @Scheduled(cron = "${app.mess-pass.sweep-cron:0 5 0 * * *}")
+    public void scheduledSweep() {
+        sweep("scheduled");
+    }
+
+    public int sweep() {
+        return sweep("manual");
+    }
+
+    private synchronized int sweep(String trigger) {
+        long start = System.nanoTime();
+        Date today = Date.valueOf(LocalDate.now());
+        List<String> expired = new ArrayList<>();
+        int chunks = 0;
+        boolean skipped = false;
+
+        try {
+            while (true) {
+                List<String> chunk = transactionTemplate.execute(status -> {
+                    Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                            ADVISORY_LOCK_KEY);
+                    if (!Boolean.TRUE.equals(locked)) {
+                        return null;
+                    }
+                    return jdbcTemplate.queryForList(DEACTIVATE_CHUNK, String.class, today, chunkSize);
+                });
+                if (chunk == null) {
+                    skipped = expired.isEmpty();
+                    break;
+                }
+                chunks++;
+                expired.addAll(chunk);
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            failedRuns++;
+            lastError = e.getMessage();
+            record(trigger, start, expired, chunks, "FAILED");
+            throw e;
+        } finally {
+            // Chunks committed before a failure stay deactivated, so their cached state still has to go
+            if (!expired.isEmpty()) {
+                passValidationIndex.evict(expired);
+            }
+        }
+
+        if (skipped) {
+            skippedRuns++;
+        }
+        record(trigger, start, expired, chunks, skipped ? "SKIPPED" : "FINISHED");
+        return expired.size();
+    }
+
+    private void record(String trigger, long start, List<String> expired, int chunks, String outcome) {
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        runs++;
+        totalDeactivated += expired.size();
+        totalDurationMillis += durationMillis;
+        maxDurationMillis = Math.max(maxDurationMillis, durationMillis);
+        lastRunAt = LocalDateTime.now();
+        lastTrigger = trigger;
+        lastDeactivated = expired.size();
+        lastChunks = chunks;
+        lastDurationMillis = durationMillis;
+        if ("scheduled".equals(trigger)) {
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("at", lastRunAt);
+            run.put("outcome", outcome);
+            run.put("deactivated", expired.size());
+            run.put("chunks", chunks);
+            run.put("durationMillis", durationMillis);
+            lastScheduled = run;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("chunkSize", chunkSize);
+        stats.put("runs", runs);
+        stats.put("skippedRuns", skippedRuns);
+        stats.put("failedRuns", failedRuns);
+        stats.put("totalDeactivated", totalDeactivated);
+        stats.put("totalDurationMillis", totalDurationMillis);
+        stats.put("maxDurationMillis", maxDurationMillis);
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastTrigger", lastTrigger);
+        stats.put("lastDeactivated", lastDeactivated);
+        stats.put("lastChunks", lastChunks);
+        stats.put("lastDurationMillis", lastDurationMillis);
+        stats.put("lastError", lastError);
+        stats.put("lastScheduled", lastScheduled);
+        return stats;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.MessMate.service;
 
+import com.example.MessMate.dto.PassValidationResponse;
 import com.example.MessMate.entity.MessPass;
+import com.example.MessMate.entity.PassLedgerEntry;
 import com.example.MessMate.entity.User;
 import com.example.MessMate.repository.MessPassRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,14 +11,17 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class MessPassService {
     
     private final MessPassRepository messPassRepository;
+    private final IdGenerator idGenerator;
+    private final PassValidationIndex passValidationIndex;
+    private final PassLedgerService passLedgerService;
     
     public MessPass createMessPass(User user, MessPass.PassType passType, LocalDate validFrom, LocalDate validUntil) {
         // Check if user already has an active pass
@@ -33,39 +38,46 @@ public class MessPassService {
         messPass.setBalance(BigDecimal.ZERO);
         messPass.setIsActive(true);
         
-        return messPassRepository.save(messPass);
+        MessPass saved = messPassRepository.save(messPass);
+        passLedgerService.openAccount(saved.getId());
+        passValidationIndex.update(saved);
+        return saved;
     }
     
     public Optional<MessPass> getUserMessPass(User user) {
-        return messPassRepository.findByUser(user);
+        return messPassRepository.findByUser(user).map(this::withCurrentBalance);
     }
     
     public Optional<MessPass> getMessPassByNumber(String passNumber) {
-        return messPassRepository.findByPassNumber(passNumber);
+        return messPassRepository.findByPassNumber(passNumber).map(this::withCurrentBalance);
     }
     
     public MessPass rechargePass(Long passId, BigDecimal amount) {
-        Optional<MessPass> passOptional = messPassRepository.findById(passId);
-        if (passOptional.isPresent()) {
-            MessPass messPass = passOptional.get();
-            messPass.setBalance(messPass.getBalance().add(amount));
-            return messPassRepository.save(messPass);
-        }
-        throw new RuntimeException("Mess pass not found");
+        return rechargePass(passId, amount, null);
+    }
+    
+    public MessPass rechargePass(Long passId, BigDecimal amount, String reference) {
+        requirePositive(amount);
+        BigDecimal balance = passLedgerService.credit(passId, amount, PassLedgerEntry.EntryType.RECHARGE, reference);
+        return afterBalanceChange(passId, balance);
     }
     
     public MessPass deductBalance(Long passId, BigDecimal amount) {
-        Optional<MessPass> passOptional = messPassRepository.findById(passId);
-        if (passOptional.isPresent()) {
-            MessPass messPass = passOptional.get();
-            if (messPass.getBalance().compareTo(amount) >= 0) {
-                messPass.setBalance(messPass.getBalance().subtract(amount));
-                return messPassRepository.save(messPass);
-            } else {
-                throw new RuntimeException("Insufficient balance");
-            }
-        }
-        throw new RuntimeException("Mess pass not found");
+        requirePositive(amount);
+        BigDecimal balance = passLedgerService.debit(passId, amount, PassLedgerEntry.EntryType.MEAL_DEDUCTION, null);
+        return afterBalanceChange(passId, balance);
+    }
+    
+    public BigDecimal getCurrentBalance(Long passId) {
+        return passLedgerService.currentBalance(passId);
+    }
+    
+    public PassValidationResponse validatePass(String passNumber) {
+        return passValidationIndex.validate(passNumber);
+    }
+    
+    public Map<String, Object> getValidationStats() {
+        return passValidationIndex.getStats();
     }
     
     public List<MessPass> getExpiredPasses() {
@@ -78,10 +90,31 @@ public class MessPassService {
             MessPass messPass = passOptional.get();
             messPass.setIsActive(false);
             messPassRepository.save(messPass);
+            passValidationIndex.update(withCurrentBalance(messPass));
+        }
+    }
+    
+    // mess_passes.balance trails the ledger until the next snapshot, so responses carry the live figure
+    private MessPass withCurrentBalance(MessPass pass) {
+        pass.setBalance(passLedgerService.currentBalance(pass.getId()));
+        return pass;
+    }
+    
+    private MessPass afterBalanceChange(Long passId, BigDecimal balance) {
+        MessPass pass = messPassRepository.findById(passId)
+                .orElseThrow(() -> new RuntimeException("Mess pass not found"));
+        pass.setBalance(balance);
+        passValidationIndex.update(pass);
+        return pass;
+    }
+    
+    private void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new RuntimeException("Amount must be greater than zero");
         }
     }
     
     private String generatePassNumber() {
-        return "MP" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextId("MP");
     }
 }
@@ -0,0 +1,250 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.OrderEvent;
+import com.example.MessMate.entity.MealOrder;
+import com.example.MessMate.entity.MenuItem;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes order lifecycle events to dashboards over Server-Sent Events.
+ *
+ * Every committed create / status change gets a sequence number and goes into
+ * a fixed-size replay ring, so a client reconnecting with Last-Event-ID picks
+ * up exactly where it left off. The sequence restarts with the process, so
+ * ids carry a per-boot epoch ("epoch-sequence"); an id from another boot or
+ * instance cannot be lined up with the ring and gets a reset event instead.
+ * Each subscriber has its own bounded queue drained by a small sender pool;
+ * a client that falls behind far enough to fill its queue is disconnected
+ * rather than slowing everyone else down, and its EventSource reconnects and
+ * replays from the ring.
+ */
+@Service
+public class OrderEventHub {
+
+    private static final long HEARTBEAT_SECONDS = 15;
+
+    private final OrderEvent[] ring;
+    private final int subscriberQueueSize;
+    private final long emitterTimeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder droppedSubscribers = new LongAdder();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Guarded by "this": sequence and ring are only touched while publishing or subscribing
+    private long sequence;
+
+    public OrderEventHub(@Value("${app.orders.stream.replay-size:1000}") int replaySize,
+                         @Value("${app.orders.stream.subscriber-queue-size:256}") int subscriberQueueSize,
+                         @Value("${app.orders.stream.sender-threads:4}") int senderThreads,
+                         @Value("${app.orders.stream.timeout-minutes:30}") long timeoutMinutes) {
+        this.ring = new OrderEvent[replaySize];
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.emitterTimeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemon("order-stream-sender"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("order-stream-heartbeat"));
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    public void orderCreated(MealOrder order) {
+        publish(OrderEvent.Type.CREATED, order.getId(), order.getMealType(), null, order.getStatus(), order.getTotalAmount());
+    }
+
+    public void statusChanged(Long orderId, MenuItem.MealType mealType,
+                              MealOrder.OrderStatus from, MealOrder.OrderStatus to) {
+        OrderEvent.Type type = to == MealOrder.OrderStatus.CANCELLED ? OrderEvent.Type.CANCELLED : OrderEvent.Type.STATUS_CHANGED;
+        publish(type, orderId, mealType, from, to, null);
+    }
+
+    // mealType == null subscribes to every meal
+    public SseEmitter subscribe(MenuItem.MealType mealType, String lastEventId) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(emitterTimeoutMillis), mealType,
+                new ArrayBlockingQueue<>(subscriberQueueSize));
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+
+        boolean resuming = lastEventId != null && !lastEventId.isBlank();
+        Long resumeFrom = parseEventId(lastEventId);
+        synchronized (this) {
+            // Replay and registration happen under the publish lock so nothing is missed or sent twice
+            if (resuming && (resumeFrom == null || resumeFrom > sequence)) {
+                // Issued before a restart or by another instance: nothing in the ring lines up with it
+                subscriber.resetRequired = true;
+            } else if (resumeFrom != null) {
+                long oldest = Math.max(1, sequence - ring.length + 1);
+                if (resumeFrom + 1 < oldest) {
+                    subscriber.resetRequired = true;
+                }
+                for (long id = Math.max(resumeFrom + 1, oldest); id <= sequence; id++) {
+                    OrderEvent event = ring[(int) (id % ring.length)];
+                    if (subscriber.accepts(event) && !subscriber.queue.offer(event)) {
+                        // Too much history to replay; the client has to reload anyway
+                        subscriber.queue.clear();
+                        subscriber.resetRequired = true;
+                        break;
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("lastEventId", epoch + "-" + sequence);
+        }
+        stats.put("subscribers", subscribers.size());
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("droppedSubscribers", droppedSubscribers.sum());
+        stats.put("replaySize", ring.length);
+        return stats;
+    }
+
+    private void publish(OrderEvent.Type type, Long orderId, MenuItem.MealType mealType,
+                         MealOrder.OrderStatus previous, MealOrder.OrderStatus status, BigDecimal totalAmount) {
+        synchronized (this) {
+            OrderEvent event = new OrderEvent(++sequence, type, orderId, mealType, previous, status, totalAmount,
+                    LocalDateTime.now());
+            ring[(int) (event.getEventId() % ring.length)] = event;
+            published.increment();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(event) && !subscriber.queue.offer(event)) {
+                    drop(subscriber);
+                }
+            }
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if ((!subscriber.queue.isEmpty() || subscriber.resetRequired) && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            if (subscriber.resetRequired) {
+                subscriber.resetRequired = false;
+                subscriber.emitter.send(SseEmitter.event().name("reset").data("{}", MediaType.APPLICATION_JSON));
+            }
+            OrderEvent event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(epoch + "-" + event.getEventId())
+                        .name(event.getType().name())
+                        .data(event, MediaType.APPLICATION_JSON));
+                delivered.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // An event may have arrived between the last poll and releasing the flag
+        schedule(subscriber);
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            droppedSubscribers.increment();
+            subscriber.queue.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.draining.get()) {
+                continue;
+            }
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    // Null unless the id was issued by this boot
+    private Long parseEventId(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        String prefix = epoch + "-";
+        String id = lastEventId.trim();
+        if (!id.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final MenuItem.MealType mealType;
+        private final BlockingQueue<OrderEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean resetRequired;
+
+        private Subscriber(SseEmitter emitter, MenuItem.MealType mealType, BlockingQueue<OrderEvent> queue) {
+            this.emitter = emitter;
+            this.mealType = mealType;
+            this.queue = queue;
+        }
+
+        private boolean accepts(OrderEvent event) {
+            return mealType == null || mealType == event.getMealType();
+        }
+    }
+}
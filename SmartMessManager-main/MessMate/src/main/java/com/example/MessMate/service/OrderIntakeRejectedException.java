@@ -0,0 +1,9 @@
+package com.example.MessMate.service;
+
+// Thrown when the order intake queue is full and the caller should retry later
+public class OrderIntakeRejectedException extends RuntimeException {
+    
+    public OrderIntakeRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.MealOrder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional group-commit path for POST /api/orders.
+ *
+ * Request threads hand over an already priced order and park it on a bounded
+ * queue. A single writer drains the queue into batches (up to batch-size
+ * orders, or whatever arrived within linger-ms) and persists each batch in
+ * one transaction, completing every caller's future once the batch commits.
+ * If a batch fails, its orders are retried one transaction each so a single
+ * bad order only fails its own caller. When the queue is full the order is
+ * rejected immediately instead of piling more requests onto the connection
+ * pool. A caller that times out while its order is still queued withdraws
+ * it, so a timeout never leaves an order that commits behind the caller's
+ * back; once the writer has taken it, the caller waits for that batch.
+ */
+@Service
+public class OrderIntakeService {
+
+    private final OrderService orderService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long awaitTimeoutMillis;
+    private final BlockingQueue<PendingOrder> queue;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder withdrawn = new LongAdder();
+    private final LongAdder batchRetries = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedOrders = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderIntakeService(OrderService orderService,
+                              @Value("${app.orders.intake.enabled:false}") boolean enabled,
+                              @Value("${app.orders.intake.queue-capacity:2000}") int queueCapacity,
+                              @Value("${app.orders.intake.batch-size:20}") int batchSize,
+                              @Value("${app.orders.intake.linger-ms:5}") long lingerMillis,
+                              @Value("${app.orders.intake.await-timeout-ms:10000}") long awaitTimeoutMillis) {
+        this.orderService = orderService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "order-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public MealOrder submit(MealOrder order) {
+        PendingOrder pending = new PendingOrder(order, new CompletableFuture<>(), new AtomicReference<>(Stage.QUEUED));
+        if (!queue.offer(pending)) {
+            rejected.increment();
+            throw new OrderIntakeRejectedException("Order intake is busy, please retry shortly");
+        }
+        accepted.increment();
+
+        try {
+            return pending.result().get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (TimeoutException e) {
+            if (pending.stage().compareAndSet(Stage.QUEUED, Stage.WITHDRAWN)) {
+                withdrawn.increment();
+                throw new OrderIntakeRejectedException("Timed out waiting for order intake; the order was not placed, please retry");
+            }
+            // Already part of a batch: its transaction decides, and the writer always completes the future
+            try {
+                return pending.result().join();
+            } catch (CompletionException completion) {
+                throw unwrap(completion.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for order to be saved");
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+    }
+
+    public Map<String, Object> getStats() {
+        long flushCount = flushes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queueDepth", queue.size());
+        stats.put("queueRemainingCapacity", queue.remainingCapacity());
+        stats.put("accepted", accepted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("failed", failed.sum());
+        stats.put("withdrawn", withdrawn.sum());
+        stats.put("batchRetries", batchRetries.sum());
+        stats.put("flushes", flushCount);
+        stats.put("flushedOrders", flushedOrders.sum());
+        stats.put("avgBatchSize", flushCount == 0 ? 0 : (double) flushedOrders.sum() / flushCount);
+        stats.put("avgFlushMillis", flushCount == 0 ? 0 : flushNanos.sum() / 1_000_000.0 / flushCount);
+        stats.put("maxFlushMillis", maxFlushNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        // Keep draining after shutdown is requested so no accepted order is dropped
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                take(first, batch);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    take(next, batch);
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Orders already taken have callers waiting on them without a timeout
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Skips orders whose caller already gave up waiting
+    private void take(PendingOrder pending, List<PendingOrder> batch) {
+        if (pending.stage().compareAndSet(Stage.QUEUED, Stage.TAKEN)) {
+            batch.add(pending);
+        }
+    }
+
+    private void flush(List<PendingOrder> batch) {
+        List<MealOrder> orders = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            orders.add(pending.order());
+        }
+
+        long start = System.nanoTime();
+        try {
+            List<MealOrder> saved = orderService.saveOrderBatch(orders);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failed.increment();
+                batch.get(0).result().completeExceptionally(e);
+            } else {
+                batchRetries.increment();
+                saveIndividually(batch);
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushes.increment();
+            flushedOrders.add(batch.size());
+            flushNanos.add(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private void saveIndividually(List<PendingOrder> batch) {
+        for (PendingOrder pending : batch) {
+            MealOrder order = pending.order();
+            // The rolled-back batch may have assigned identity values already
+            order.setId(null);
+            try {
+                pending.result().complete(orderService.saveOrderBatch(List.of(order)).get(0));
+            } catch (RuntimeException e) {
+                failed.increment();
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private enum Stage {
+        QUEUED, TAKEN, WITHDRAWN
+    }
+
+    private record PendingOrder(MealOrder order, CompletableFuture<MealOrder> result, AtomicReference<Stage> stage) {
+    }
+}
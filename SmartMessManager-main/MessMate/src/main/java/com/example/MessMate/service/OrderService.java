@@ -1,40 +1,162 @@
 package com.example.MessMate.service;
 
+import com.example.MessMate.dto.BulkStatusUpdateRequest;
+import com.example.MessMate.dto.BulkStatusUpdateResponse;
+import com.example.MessMate.dto.CursorPage;
+import com.example.MessMate.dto.OrderRequest;
 import com.example.MessMate.entity.MealOrder;
 import com.example.MessMate.entity.MenuItem;
 import com.example.MessMate.entity.User;
 import com.example.MessMate.repository.MealOrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
     
     private final MealOrderRepository mealOrderRepository;
+    private final KitchenCounterService kitchenCounterService;
+    private final JdbcStreamExporter jdbcStreamExporter;
+    private final MenuCatalogCache menuCatalogCache;
+    private final OrderEventHub orderEventHub;
+    private final DailyRollupService dailyRollupService;
+    private final JdbcTemplate jdbcTemplate;
     
+    private static final int MAX_BULK_ORDERS = 5000;
+    
+    private static final String TRANSITION = "UPDATE meal_orders SET status = ?, updated_at = ? " +
+            "WHERE status = ? AND id = ANY(?::bigint[]) RETURNING id";
+    private static final int MAX_ITEM_QUANTITY = 20;
+    
+    private static final String EXPORT_COLUMNS = "SELECT id, user_id AS \"userId\", meal_type AS \"mealType\", status, " +
+            "total_amount AS \"totalAmount\", special_instructions AS \"specialInstructions\", " +
+            "created_at AS \"createdAt\", updated_at AS \"updatedAt\" FROM meal_orders";
+    
+    // Joins the caller's transaction when there is one, e.g. the one holding an idempotency key
+    @Transactional
     public MealOrder createOrder(MealOrder order) {
-        // Calculate total amount
-        BigDecimal totalAmount = order.getMenuItems().stream()
-                .map(MenuItem::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        order.setTotalAmount(totalAmount);
-        order.setStatus(MealOrder.OrderStatus.PENDING);
+        MealOrder saved = mealOrderRepository.save(order);
+        afterCommit(() -> {
+            kitchenCounterService.onOrderCreated(saved);
+            orderEventHub.orderCreated(saved);
+            dailyRollupService.orderPlaced(saved);
+        });
+        return saved;
+    }
+    
+    // Builds and prices an order from item ids against the cached menu; nothing is persisted yet
+    public MealOrder prepareOrder(OrderRequest request, User user) {
+        if (request.getMealType() == null) {
+            throw new RuntimeException("Meal type is required");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new RuntimeException("Order must contain at least one item");
+        }
         
-        return mealOrderRepository.save(order);
+        MenuCatalogCache.Snapshot catalog = menuCatalogCache.snapshot();
+        MenuPriceTable prices = catalog.priceTable();
+        List<MenuItem> menuItems = new ArrayList<>();
+        long totalInPaise = 0;
+        for (OrderRequest.Line line : request.getItems()) {
+            Long itemId = line.getMenuItemId();
+            int quantity = line.getQuantity() == null ? 1 : line.getQuantity();
+            if (itemId == null || quantity < 1 || quantity > MAX_ITEM_QUANTITY) {
+                throw new RuntimeException("Each item needs a menu item id and a quantity between 1 and " + MAX_ITEM_QUANTITY);
+            }
+            long unitPrice = prices.priceInPaise(itemId);
+            MenuItem item = catalog.itemsById().get(itemId);
+            if (unitPrice == MenuPriceTable.NOT_ORDERABLE || item == null) {
+                throw new RuntimeException("Menu item " + itemId + " is not available");
+            }
+            if (item.getMealType() != request.getMealType()) {
+                throw new RuntimeException(item.getName() + " is not served at " + request.getMealType());
+            }
+            totalInPaise = Math.addExact(totalInPaise, Math.multiplyExact(unitPrice, quantity));
+            // The join table holds one row per plate
+            for (int i = 0; i < quantity; i++) {
+                menuItems.add(item);
+            }
+        }
+        
+        MealOrder order = new MealOrder();
+        order.setUser(user);
+        order.setMealType(request.getMealType());
+        order.setSpecialInstructions(request.getSpecialInstructions());
+        order.setMenuItems(menuItems);
+        order.setTotalAmount(MenuPriceTable.fromPaise(totalInPaise));
+        order.setStatus(MealOrder.OrderStatus.PENDING);
+        return order;
     }
     
-    public List<MealOrder> getUserOrders(User user) {
-        return mealOrderRepository.findByUserOrderByCreatedAtDesc(user);
+    // Persists prepared orders in one transaction, used by the batched intake pipeline
+    @Transactional
+    public List<MealOrder> saveOrderBatch(List<MealOrder> orders) {
+        List<MealOrder> saved = mealOrderRepository.saveAll(orders);
+        afterCommit(() -> saved.forEach(order -> {
+            kitchenCounterService.onOrderCreated(order);
+            orderEventHub.orderCreated(order);
+            dailyRollupService.orderPlaced(order);
+        }));
+        return saved;
     }
     
-    public List<MealOrder> getOrdersByStatus(MealOrder.OrderStatus status) {
-        return mealOrderRepository.findByStatus(status);
+    public CursorPage<MealOrder> getUserOrders(User user, String cursor, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        List<MealOrder> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = mealOrderRepository.findPageByUser(user, fetch);
+        } else {
+            CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+            rows = mealOrderRepository.findPageByUserBefore(user, position.createdAt(), position.id(), fetch);
+        }
+        return CursorPage.of(rows, pageSize, MealOrder::getCreatedAt, MealOrder::getId);
+    }
+    
+    public CursorPage<MealOrder> getOrdersByStatus(MealOrder.OrderStatus status, String cursor, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        List<MealOrder> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = mealOrderRepository.findPageByStatus(status, fetch);
+        } else {
+            CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+            rows = mealOrderRepository.findPageByStatusBefore(status, position.createdAt(), position.id(), fetch);
+        }
+        return CursorPage.of(rows, pageSize, MealOrder::getCreatedAt, MealOrder::getId);
+    }
+    
+    // NDJSON export for admins; rows are streamed from the cursor and never held in memory
+    public StreamingResponseBody exportOrders(MealOrder.OrderStatus status) {
+        if (status == null) {
+            return jdbcStreamExporter.ndjson(EXPORT_COLUMNS + " ORDER BY created_at DESC, id DESC");
+        }
+        return jdbcStreamExporter.ndjson(EXPORT_COLUMNS + " WHERE status = ? ORDER BY created_at DESC, id DESC",
+                status.name());
     }
     
     public List<MealOrder> getTodaysOrders(MenuItem.MealType mealType) {
@@ -47,21 +169,163 @@ public class OrderService {
         return mealOrderRepository.findById(id);
     }
     
+    @Transactional
     public MealOrder updateOrderStatus(Long orderId, MealOrder.OrderStatus status) {
-        Optional<MealOrder> orderOptional = mealOrderRepository.findById(orderId);
-        if (orderOptional.isPresent()) {
-            MealOrder order = orderOptional.get();
-            order.setStatus(status);
-            return mealOrderRepository.save(order);
+        MealOrder order = mealOrderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        MealOrder.OrderStatus previous = order.getStatus();
+        if (previous == status) {
+            return order;
+        }
+        if (!previous.canTransitionTo(status)) {
+            throw new RuntimeException("Cannot change order status from " + previous + " to " + status);
+        }
+        // Load the items while the session is open; the counters read them after commit
+        Hibernate.initialize(order.getMenuItems());
+        
+        // Of two concurrent transitions from the same status only one matches, so only one publishes
+        LocalDateTime now = LocalDateTime.now();
+        if (mealOrderRepository.compareAndSetStatus(orderId, previous, status, now) == 0) {
+            throw new RuntimeException("Order status was changed concurrently, please reload and retry");
         }
-        throw new RuntimeException("Order not found");
+        order.setStatus(status);
+        order.setUpdatedAt(now);
+        afterCommit(() -> {
+            kitchenCounterService.onStatusChanged(order, previous, status);
+            orderEventHub.statusChanged(order.getId(), order.getMealType(), previous, status);
+            if (status == MealOrder.OrderStatus.CANCELLED) {
+                dailyRollupService.orderCancelled(order.getMealType(), order.getCreatedAt(),
+                        order.getMenuItems().size(), order.getTotalAmount());
+            }
+        });
+        return order;
+    }
+    
+    @Transactional
+    public BulkStatusUpdateResponse bulkUpdateStatus(BulkStatusUpdateRequest request) {
+        MealOrder.OrderStatus target = request.getTargetStatus();
+        if (target == null) {
+            throw new RuntimeException("Target status is required");
+        }
+        
+        List<Object[]> rows;
+        List<Long> requestedIds;
+        if (request.getOrderIds() != null && !request.getOrderIds().isEmpty()) {
+            requestedIds = request.getOrderIds().stream().distinct().collect(Collectors.toList());
+            if (requestedIds.size() > MAX_BULK_ORDERS) {
+                throw new RuntimeException("At most " + MAX_BULK_ORDERS + " orders can be updated at once");
+            }
+            rows = mealOrderRepository.findStatusRowsByIdIn(requestedIds);
+        } else if (request.getMealType() != null && request.getFromStatus() != null) {
+            LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+            rows = mealOrderRepository.findStatusRowsByMealTypeAndStatus(request.getMealType(),
+                    request.getFromStatus(), startOfDay, startOfDay.plusDays(1), Limit.of(MAX_BULK_ORDERS + 1));
+            if (rows.size() > MAX_BULK_ORDERS) {
+                throw new RuntimeException("More than " + MAX_BULK_ORDERS + " orders match; update them by id in batches");
+            }
+            requestedIds = rows.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+        } else {
+            throw new RuntimeException("Provide orderIds, or mealType and fromStatus");
+        }
+        
+        Map<Long, Object[]> rowsById = new HashMap<>();
+        for (Object[] row : rows) {
+            rowsById.put((Long) row[0], row);
+        }
+        
+        // Decide every id up front so only valid transitions reach the UPDATE
+        Map<Long, BulkStatusUpdateResponse.Result> results = new LinkedHashMap<>();
+        Map<MealOrder.OrderStatus, List<Long>> eligibleByStatus = new EnumMap<>(MealOrder.OrderStatus.class);
+        for (Long id : requestedIds) {
+            Object[] row = rowsById.get(id);
+            if (row == null) {
+                results.put(id, new BulkStatusUpdateResponse.Result(id, null, BulkStatusUpdateResponse.Outcome.NOT_FOUND));
+                continue;
+            }
+            MealOrder.OrderStatus current = (MealOrder.OrderStatus) row[1];
+            if (current == target) {
+                results.put(id, new BulkStatusUpdateResponse.Result(id, current, BulkStatusUpdateResponse.Outcome.UNCHANGED));
+            } else if (!current.canTransitionTo(target)) {
+                results.put(id, new BulkStatusUpdateResponse.Result(id, current, BulkStatusUpdateResponse.Outcome.INVALID_TRANSITION));
+            } else {
+                results.put(id, new BulkStatusUpdateResponse.Result(id, current, BulkStatusUpdateResponse.Outcome.UPDATED));
+                eligibleByStatus.computeIfAbsent(current, k -> new ArrayList<>()).add(id);
+            }
+        }
+        
+        if (!eligibleByStatus.isEmpty()) {
+            // One UPDATE per status the rows were read in, so an order moved by someone else in
+            // between is left alone and reported, and the counters are told the true source status
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Long> updatedIds = new ArrayList<>();
+            for (Map.Entry<MealOrder.OrderStatus, List<Long>> group : eligibleByStatus.entrySet()) {
+                StringJoiner ids = new StringJoiner(",", "{", "}");
+                group.getValue().forEach(id -> ids.add(id.toString()));
+                Set<Long> moved = new HashSet<>(jdbcTemplate.queryForList(TRANSITION, Long.class,
+                        target.name(), now, group.getKey().name(), ids.toString()));
+                for (Long id : group.getValue()) {
+                    if (moved.contains(id)) {
+                        updatedIds.add(id);
+                    } else {
+                        results.get(id).setOutcome(BulkStatusUpdateResponse.Outcome.CONFLICT);
+                    }
+                }
+            }
+            recordBulkTransition(updatedIds, rowsById, target);
+        }
+        
+        List<BulkStatusUpdateResponse.Result> resultList = new ArrayList<>(results.values());
+        int updatedCount = (int) resultList.stream()
+                .filter(result -> result.getOutcome() == BulkStatusUpdateResponse.Outcome.UPDATED)
+                .count();
+        return new BulkStatusUpdateResponse(target, requestedIds.size(), updatedCount, resultList);
+    }
+    
+    private void recordBulkTransition(List<Long> updatedIds, Map<Long, Object[]> rowsById,
+                                      MealOrder.OrderStatus target) {
+        if (updatedIds.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, List<Long>> itemsByOrder = new HashMap<>();
+        for (Object[] row : mealOrderRepository.findMenuItemIdsByOrderIdIn(updatedIds)) {
+            itemsByOrder.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Long) row[1]);
+        }
+        
+        afterCommit(() -> {
+            for (Long id : updatedIds) {
+                Object[] row = rowsById.get(id);
+                kitchenCounterService.onStatusChanged((MenuItem.MealType) row[2], (LocalDateTime) row[3],
+                        itemsByOrder.getOrDefault(id, List.of()), (MealOrder.OrderStatus) row[1], target);
+                orderEventHub.statusChanged(id, (MenuItem.MealType) row[2], (MealOrder.OrderStatus) row[1], target);
+                if (target == MealOrder.OrderStatus.CANCELLED) {
+                    dailyRollupService.orderCancelled((MenuItem.MealType) row[2], (LocalDateTime) row[3],
+                            itemsByOrder.getOrDefault(id, List.of()).size(), (BigDecimal) row[4]);
+                }
+            }
+        });
     }
     
     public long getUserOrderCount(User user, LocalDateTime start, LocalDateTime end) {
         return mealOrderRepository.countByUserAndCreatedAtBetween(user, start, end);
     }
     
+    @Transactional
     public void cancelOrder(Long orderId) {
         updateOrderStatus(orderId, MealOrder.OrderStatus.CANCELLED);
     }
+    
+    // In-memory views must only see changes that actually committed
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
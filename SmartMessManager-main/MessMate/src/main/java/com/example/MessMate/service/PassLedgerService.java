@@ -0,0 +1,275 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.LedgerVerificationReport;
+import com.example.MessMate.entity.PassBalanceSnapshot;
+import com.example.MessMate.entity.PassLedgerEntry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mess pass money as an append-only ledger plus periodic snapshots.
+ *
+ * Every credit and debit is a pass_ledger row; pass_balance_snapshots holds,
+ * per pass, the sum of its entries up to last_entry_id. The current balance
+ * is that snapshot plus the tail of newer entries, read in one statement.
+ * Credits are a single INSERT and never wait on anything. Debits take a
+ * per-pass advisory lock so two counters cannot both spend the same money,
+ * then insert. mess_passes.balance is no longer written on the hot path; the
+ * snapshot job folds the tail into the snapshots and refreshes that column.
+ *
+ * Ids are handed out before commit, so a committed entry can sit above an
+ * id whose transaction is still open. Before folding, the snapshot job
+ * marks the highest visible id and the time, then waits until every
+ * transaction that began before the mark has ended; every id up to the mark
+ * was taken by one of those, so none is skipped. If they do not finish
+ * within snapshot-wait-seconds the run is skipped and the next one retries.
+ */
+@Service
+public class PassLedgerService {
+
+    // First half of the two-key advisory lock, keeps ledger locks apart from other users of advisory locks
+    private static final int PASS_LOCK_CLASS = 0x4C44;
+    private static final long SNAPSHOT_LOCK_KEY = 0x4C45_4447_4552L;
+
+    private static final String CURRENT_BALANCE = "SELECT " + PassBalanceSnapshot.BALANCE_EXPRESSION + " " +
+            "FROM mess_passes p LEFT JOIN pass_balance_snapshots s ON s.pass_id = p.id WHERE p.id = ?";
+
+    private static final String ACTIVE_BALANCES = "SELECT p.id, " + PassBalanceSnapshot.BALANCE_EXPRESSION + " AS balance " +
+            "FROM mess_passes p LEFT JOIN pass_balance_snapshots s ON s.pass_id = p.id WHERE p.is_active = true";
+
+    private static final String INSERT_ENTRY = "INSERT INTO pass_ledger (pass_id, amount, entry_type, reference, created_at) " +
+            "VALUES (?, ?, ?, ?, now())";
+
+    // The CTE's insert is invisible to the outer SELECT, so its amount is added on top of the prior balance
+    private static final String CREDIT = "WITH entry AS (" + INSERT_ENTRY + " RETURNING amount) " +
+            "SELECT (" + CURRENT_BALANCE + ") + (SELECT amount FROM entry)";
+
+    private static final String OPEN_ACCOUNT = "INSERT INTO pass_balance_snapshots (pass_id, balance, last_entry_id, snapshot_at) " +
+            "VALUES (?, 0, 0, now()) ON CONFLICT (pass_id) DO NOTHING";
+
+    // Passes that predate the ledger get their old balance column as an OPENING entry
+    private static final String SEED_OPENING_BALANCES = "WITH missing AS (SELECT p.id, p.balance FROM mess_passes p " +
+            "WHERE NOT EXISTS (SELECT 1 FROM pass_balance_snapshots s WHERE s.pass_id = p.id)), " +
+            "opened AS (INSERT INTO pass_balance_snapshots (pass_id, balance, last_entry_id, snapshot_at) " +
+            "SELECT id, 0, 0, now() FROM missing ON CONFLICT (pass_id) DO NOTHING RETURNING pass_id) " +
+            "INSERT INTO pass_ledger (pass_id, amount, entry_type, reference, created_at) " +
+            "SELECT m.id, m.balance, 'OPENING', NULL, now() FROM missing m JOIN opened o ON o.pass_id = m.id " +
+            "WHERE m.balance <> 0";
+
+    // clock_timestamp() runs after the statement's snapshot, so every id up to the mark was taken before it
+    private static final String MARK_WATERMARK = "SELECT COALESCE(MAX(id), 0) AS id, clock_timestamp() AS marked_at " +
+            "FROM pass_ledger";
+
+    // Sessions of this database, other than the caller's, with a transaction that began before the mark
+    private static final String TRANSACTIONS_BEFORE = "SELECT COUNT(*) FROM pg_stat_activity " +
+            "WHERE datname = current_database() AND pid <> pg_backend_pid() AND xact_start < ?";
+
+    // prev_id guards against a concurrent run: a row it already advanced no longer matches and is skipped
+    private static final String FOLD_TAIL = "WITH watermark AS (SELECT CAST(? AS bigint) AS id), " +
+            "tail AS (SELECT s.pass_id, s.last_entry_id AS prev_id, SUM(l.amount) AS delta, MAX(l.id) AS last_id " +
+            "FROM pass_balance_snapshots s JOIN pass_ledger l ON l.pass_id = s.pass_id, watermark w " +
+            "WHERE l.id > s.last_entry_id AND l.id <= w.id GROUP BY s.pass_id, s.last_entry_id) " +
+            "UPDATE pass_balance_snapshots s SET balance = s.balance + t.delta, last_entry_id = t.last_id, snapshot_at = now() " +
+            "FROM tail t WHERE s.pass_id = t.pass_id AND s.last_entry_id = t.prev_id";
+
+    private static final String REFRESH_PASS_BALANCES = "UPDATE mess_passes p SET balance = b.balance, updated_at = now() " +
+            "FROM (SELECT s.pass_id, s.balance + COALESCE(SUM(l.amount), 0) AS balance FROM pass_balance_snapshots s " +
+            "LEFT JOIN pass_ledger l ON l.pass_id = s.pass_id AND l.id > s.last_entry_id " +
+            "GROUP BY s.pass_id, s.balance) b WHERE p.id = b.pass_id AND p.balance <> b.balance";
+
+    private static final String VERIFY_RANGE = "SELECT s.pass_id, s.balance, COALESCE(SUM(l.amount), 0) AS replayed, " +
+            "COUNT(*) OVER () AS checked FROM pass_balance_snapshots s " +
+            "LEFT JOIN pass_ledger l ON l.pass_id = s.pass_id AND l.id <= s.last_entry_id " +
+            "WHERE s.pass_id BETWEEN ? AND ? GROUP BY s.pass_id, s.balance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService verifiers;
+    private final int verifyPartitions;
+    private final long snapshotWaitSeconds;
+
+    public PassLedgerService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             @Value("${app.ledger.verify-threads:4}") int verifyThreads,
+                             @Value("${app.ledger.snapshot-wait-seconds:30}") long snapshotWaitSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.verifyPartitions = verifyThreads * 4;
+        this.snapshotWaitSeconds = snapshotWaitSeconds;
+        this.verifiers = Executors.newFixedThreadPool(verifyThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ledger-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        verifiers.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOpeningBalances() {
+        int seeded = jdbcTemplate.update(SEED_OPENING_BALANCES);
+        if (seeded > 0) {
+            System.out.println("Seeded " + seeded + " opening ledger balances from mess_passes");
+        }
+    }
+
+    public void openAccount(Long passId) {
+        jdbcTemplate.update(OPEN_ACCOUNT, passId);
+    }
+
+    public BigDecimal currentBalance(Long passId) {
+        List<BigDecimal> balance = jdbcTemplate.queryForList(CURRENT_BALANCE, BigDecimal.class, passId);
+        if (balance.isEmpty()) {
+            throw new RuntimeException("Mess pass not found");
+        }
+        return balance.get(0);
+    }
+
+    // Current balance of every active pass, keyed by pass id
+    public Map<Long, BigDecimal> activeBalances() {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.query(ACTIVE_BALANCES, rs -> {
+            balances.put(rs.getLong("id"), rs.getBigDecimal("balance"));
+        });
+        return balances;
+    }
+
+    // Returns the balance after the credit
+    public BigDecimal credit(Long passId, BigDecimal amount, PassLedgerEntry.EntryType type, String reference) {
+        return transactionTemplate.execute(status -> {
+            List<BigDecimal> balance = jdbcTemplate.queryForList(CREDIT, BigDecimal.class,
+                    passId, amount, type.name(), reference, passId);
+            if (balance.isEmpty() || balance.get(0) == null) {
+                status.setRollbackOnly();
+                throw new RuntimeException("Mess pass not found");
+            }
+            return balance.get(0);
+        });
+    }
+
+    // Returns the balance after the debit; amount is positive and stored negated
+    public BigDecimal debit(Long passId, BigDecimal amount, PassLedgerEntry.EntryType type, String reference) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?, ?)::text", String.class,
+                    PASS_LOCK_CLASS, (int) (passId ^ (passId >>> 32)));
+            BigDecimal balance = currentBalance(passId);
+            if (balance.compareTo(amount) < 0) {
+                throw new RuntimeException("Insufficient balance");
+            }
+            jdbcTemplate.update(INSERT_ENTRY, passId, amount.negate(), type.name(), reference);
+            return balance.subtract(amount);
+        });
+    }
+
+    @Scheduled(cron = "${app.ledger.snapshot-cron:0 */5 * * * *}")
+    public void scheduledSnapshot() {
+        snapshotBalances();
+    }
+
+    // Returns the number of passes whose snapshot moved, or -1 when the run was skipped because another
+    // instance is already snapshotting or transactions older than the watermark did not finish in time
+    public int snapshotBalances() {
+        // Runs outside a transaction so this caller's own transaction is not among those waited for
+        Map<String, Object> mark = jdbcTemplate.queryForMap(MARK_WATERMARK);
+        long watermark = ((Number) mark.get("id")).longValue();
+        if (!awaitTransactionsBefore((Timestamp) mark.get("marked_at"))) {
+            System.out.println("Ledger snapshot skipped: transactions older than the watermark are still open");
+            return -1;
+        }
+        Integer folded = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                    SNAPSHOT_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return -1;
+            }
+            int count = jdbcTemplate.update(FOLD_TAIL, watermark);
+            jdbcTemplate.update(REFRESH_PASS_BALANCES);
+            return count;
+        });
+        return folded == null ? -1 : folded;
+    }
+
+    private boolean awaitTransactionsBefore(Timestamp mark) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(snapshotWaitSeconds);
+        while (true) {
+            Integer open = jdbcTemplate.queryForObject(TRANSACTIONS_BEFORE, Integer.class, mark);
+            if (open == null || open == 0) {
+                return true;
+            }
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    // Replays every pass's ledger up to its snapshot watermark, one id range per worker
+    public LedgerVerificationReport verifySnapshots() {
+        long start = System.nanoTime();
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT COALESCE(MIN(pass_id), 0) AS low, COALESCE(MAX(pass_id), -1) AS high FROM pass_balance_snapshots");
+        long low = ((Number) bounds.get("low")).longValue();
+        long high = ((Number) bounds.get("high")).longValue();
+
+        List<CompletableFuture<RangeResult>> futures = new ArrayList<>();
+        if (high >= low) {
+            long span = Math.max(1, (high - low + verifyPartitions) / verifyPartitions);
+            for (long from = low; from <= high; from += span) {
+                long rangeStart = from;
+                long rangeEnd = Math.min(high, from + span - 1);
+                futures.add(CompletableFuture.supplyAsync(() -> verifyRange(rangeStart, rangeEnd), verifiers));
+            }
+        }
+
+        long checked = 0;
+        List<LedgerVerificationReport.Mismatch> mismatches = new ArrayList<>();
+        for (CompletableFuture<RangeResult> future : futures) {
+            RangeResult result = future.join();
+            checked += result.checked();
+            mismatches.addAll(result.mismatches());
+        }
+        return new LedgerVerificationReport(checked, futures.size(), (System.nanoTime() - start) / 1_000_000, mismatches);
+    }
+
+    private RangeResult verifyRange(long from, long to) {
+        long[] checked = {0};
+        List<LedgerVerificationReport.Mismatch> mismatches = new ArrayList<>();
+        jdbcTemplate.query(VERIFY_RANGE, rs -> {
+            checked[0] = rs.getLong("checked");
+            BigDecimal snapshot = rs.getBigDecimal("balance");
+            BigDecimal replayed = rs.getBigDecimal("replayed");
+            if (snapshot.compareTo(replayed) != 0) {
+                mismatches.add(new LedgerVerificationReport.Mismatch(rs.getLong("pass_id"), snapshot, replayed));
+            }
+        }, from, to);
+        return new RangeResult(checked[0], mismatches);
+    }
+
+    private record RangeResult(long checked, List<LedgerVerificationReport.Mismatch> mismatches) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.MessMate.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Reads an offline pass snapshot written by {@link PassSnapshotWriter}.
+ *
+ * Layout (big-endian): a 32-byte header - magic, format version, kind
+ * (full or delta), version, base version, record count - followed by
+ * fixed-width 48-byte records sorted by the raw bytes of the pass number.
+ * The file is memory-mapped and searched in place, so a lookup touches a
+ * handful of pages and allocates nothing but the result.
+ *
+ * A full snapshot lists active passes only. A delta lists every pass changed
+ * after its base version, inactive ones included, and wins over anything
+ * older for the passes it contains.
+ */
+public final class PassSnapshotReader {
+
+    public static final int MAGIC = 0x4D50534E; // "MPSN"
+    public static final short FORMAT_VERSION = 1;
+    public static final short KIND_FULL = 0;
+    public static final short KIND_DELTA = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 48;
+    public static final int PASS_NUMBER_BYTES = 24;
+    public static final int FLAG_ACTIVE = 1;
+
+    private final ByteBuffer buffer;
+    private final short kind;
+    private final long version;
+    private final long baseVersion;
+    private final int count;
+
+    private PassSnapshotReader(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a pass snapshot");
+        }
+        if (buffer.getShort(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported pass snapshot format " + buffer.getShort(4));
+        }
+        this.buffer = buffer;
+        this.kind = buffer.getShort(6);
+        this.version = buffer.getLong(8);
+        this.baseVersion = buffer.getLong(16);
+        this.count = buffer.getInt(24);
+        if ((long) HEADER_SIZE + (long) count * RECORD_SIZE > buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated pass snapshot");
+        }
+    }
+
+    public static PassSnapshotReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PassSnapshotReader(mapped);
+        }
+    }
+
+    public static PassSnapshotReader wrap(ByteBuffer buffer) {
+        return new PassSnapshotReader(buffer.duplicate());
+    }
+
+    public boolean isDelta() {
+        return kind == KIND_DELTA;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long baseVersion() {
+        return baseVersion;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Entry get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        int length = 0;
+        while (length < PASS_NUMBER_BYTES && buffer.get(offset + length) != 0) {
+            length++;
+        }
+        byte[] passNumber = new byte[length];
+        buffer.get(offset, passNumber);
+        return new Entry(new String(passNumber, StandardCharsets.US_ASCII),
+                LocalDate.ofEpochDay(buffer.getInt(offset + 24)),
+                LocalDate.ofEpochDay(buffer.getInt(offset + 28)),
+                (buffer.getInt(offset + 32) & FLAG_ACTIVE) != 0,
+                buffer.getLong(offset + 36));
+    }
+
+    public Optional<Entry> find(String passNumber) {
+        byte[] key = encodePassNumber(passNumber);
+        if (key == null) {
+            return Optional.empty();
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(HEADER_SIZE + mid * RECORD_SIZE, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return Optional.of(get(mid));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Zero-padded fixed-width key; null when the number cannot be in any snapshot
+    static byte[] encodePassNumber(String passNumber) {
+        byte[] raw = passNumber.getBytes(StandardCharsets.US_ASCII);
+        if (raw.length == 0 || raw.length > PASS_NUMBER_BYTES) {
+            return null;
+        }
+        byte[] key = new byte[PASS_NUMBER_BYTES];
+        System.arraycopy(raw, 0, key, 0, raw.length);
+        return key;
+    }
+
+    private int compareKey(int offset, byte[] key) {
+        for (int i = 0; i < PASS_NUMBER_BYTES; i++) {
+            int cmp = Integer.compare(buffer.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    public record Entry(String passNumber, LocalDate validFrom, LocalDate validUntil, boolean active,
+                        long balanceInPaise) {
+
+        public boolean isValidOn(LocalDate date) {
+            return active && !date.isBefore(validFrom) && !date.isAfter(validUntil);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.repository.MessPassRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Produces offline pass snapshots for counter terminals.
+ *
+ * A full snapshot of active passes is rebuilt on a schedule; terminals
+ * then ask for deltas since the version they hold. The version is the
+ * latest change time seen in mess_passes.updated_at or the ledger (epoch
+ * millis), read before the rows are streamed. Those timestamps are taken
+ * when a transaction writes, not when it commits, so a row can carry a
+ * time below a version that was already handed out; a delta therefore
+ * re-reads an overlap window (overlap-seconds, which must exceed the
+ * longest transaction that writes passes or ledger entries) before its
+ * base version. Delta entries replace earlier ones on the terminal, so the
+ * repeats are harmless. Balances come from the ledger snapshot plus tail.
+ * Rows are read through a forward-only cursor and written straight to disk.
+ *
+ * A delta is written once per (since, version) pair; terminals polling with
+ * the same base share the file until the data changes. Files may still be
+ * streaming to a terminal when a newer snapshot lands, so pruning keeps the
+ * previous full snapshot and leaves deltas alone for delta-retention-seconds.
+ */
+@Service
+public class PassSnapshotService {
+
+    private static final String CURRENT_VERSION = "SELECT GREATEST((SELECT MAX(updated_at) FROM mess_passes), " +
+            "(SELECT created_at FROM pass_ledger ORDER BY id DESC LIMIT 1))";
+
+    private final MessPassRepository messPassRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path directory;
+    private final long overlapMillis;
+    private final long deltaRetentionMillis;
+    private final ConcurrentHashMap<String, Snapshot> deltas = new ConcurrentHashMap<>();
+
+    private volatile Snapshot latestFull;
+
+    public PassSnapshotService(MessPassRepository messPassRepository, JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.mess-pass.snapshot-dir:snapshots}") String directory,
+                               @Value("${app.mess-pass.snapshot-overlap-seconds:300}") long overlapSeconds,
+                               @Value("${app.mess-pass.snapshot-delta-retention-seconds:900}") long deltaRetentionSeconds) {
+        this.messPassRepository = messPassRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.overlapMillis = overlapSeconds * 1000;
+        this.deltaRetentionMillis = deltaRetentionSeconds * 1000;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.directory = Paths.get(directory);
+    }
+
+    @Scheduled(cron = "${app.mess-pass.snapshot-cron:0 */15 * * * *}")
+    public void scheduledFullSnapshot() {
+        Snapshot snapshot = buildFullSnapshot();
+        System.out.println("Wrote pass snapshot " + snapshot.file() + " (" + snapshot.records() + " passes)");
+    }
+
+    public Snapshot getLatestFullSnapshot() {
+        Snapshot snapshot = latestFull;
+        return snapshot != null ? snapshot : buildFullSnapshot();
+    }
+
+    public synchronized Snapshot buildFullSnapshot() {
+        Snapshot snapshot = readOnlyTransaction.execute(status -> {
+            long version = currentVersion();
+            try (Stream<Object[]> rows = messPassRepository.streamActiveForSnapshot()) {
+                return write("passes-full-" + version + ".bin", PassSnapshotReader.KIND_FULL, 0, version, rows);
+            }
+        });
+        Snapshot previous = latestFull;
+        latestFull = snapshot;
+        pruneOlderThan(snapshot, previous);
+        return snapshot;
+    }
+
+    public Snapshot buildDelta(long since) {
+        long version = Math.max(currentVersion(), since);
+        String fileName = "passes-delta-" + since + "-" + version + ".bin";
+        Snapshot cached = deltas.get(fileName);
+        if (cached != null && Files.exists(cached.file())) {
+            return cached;
+        }
+        // Concurrent polls for the same delta wait for the one writer instead of each writing a copy
+        return deltas.compute(fileName, (name, existing) -> {
+            if (existing != null && Files.exists(existing.file())) {
+                return existing;
+            }
+            LocalDateTime from = fromVersion(since - overlapMillis);
+            return readOnlyTransaction.execute(status -> {
+                try (Stream<Object[]> rows = messPassRepository.streamChangedForSnapshot(from)) {
+                    return write(name, PassSnapshotReader.KIND_DELTA, since, version, rows);
+                }
+            });
+        });
+    }
+
+    private long currentVersion() {
+        Timestamp latest = jdbcTemplate.queryForObject(CURRENT_VERSION, Timestamp.class);
+        return latest == null ? 0 : latest.getTime();
+    }
+
+    // Rounds down, so a delta may repeat a row from the same millisecond but never skips one
+    private static LocalDateTime fromVersion(long version) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(version), ZoneId.systemDefault());
+    }
+
+    private Snapshot write(String fileName, short kind, long baseVersion, long version, Stream<Object[]> rows) {
+        try {
+            Files.createDirectories(directory);
+            try (PassSnapshotWriter writer = new PassSnapshotWriter(directory.resolve(fileName), kind, baseVersion)) {
+                Iterator<Object[]> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    Object[] row = iterator.next();
+                    writer.append((String) row[0], toLocalDate(row[1]), toLocalDate(row[2]),
+                            Boolean.TRUE.equals(row[3]), MenuPriceTable.toPaise((BigDecimal) row[4]));
+                }
+                Path file = writer.commit(version);
+                return new Snapshot(file, version, writer.count());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write pass snapshot " + fileName, e);
+        }
+    }
+
+    // Terminals holding an older full snapshot reload the current one, so full snapshots before the
+    // previous one can go; deltas are only removed once nothing can still be downloading them
+    private void pruneOlderThan(Snapshot current, Snapshot previous) {
+        if (previous == null || previous.file().equals(current.file())) {
+            return;
+        }
+        long deltaCutoff = System.currentTimeMillis() - deltaRetentionMillis;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "passes-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean stale;
+                if (name.startsWith("passes-full-") && name.endsWith(".bin")) {
+                    stale = fullVersion(name) < previous.version();
+                } else {
+                    // Deltas, and temp files left behind by a crash mid-write
+                    stale = Files.getLastModifiedTime(file).toMillis() < deltaCutoff;
+                }
+                if (stale) {
+                    Files.deleteIfExists(file);
+                    deltas.remove(name);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not prune old pass snapshots: " + e.getMessage());
+        }
+    }
+
+    private static long fullVersion(String fileName) {
+        try {
+            return Long.parseLong(fileName.substring("passes-full-".length(), fileName.length() - ".bin".length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    public record Snapshot(Path file, long version, int records) {
+    }
+}
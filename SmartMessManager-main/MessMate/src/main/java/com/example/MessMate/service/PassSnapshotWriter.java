@@ -0,0 +1,107 @@
+package com.example.MessMate.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Writes the binary format read by {@link PassSnapshotReader}.
+ *
+ * Records must be appended in pass number byte order, which is what the
+ * database returns for ORDER BY ... COLLATE "C". The record count is only
+ * known at the end, so the header is written last; the file is built under a
+ * temporary name of its own and moved into place, so readers never see a
+ * partial file and two writers of the same target never share a temp file.
+ */
+final class PassSnapshotWriter implements AutoCloseable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(PassSnapshotReader.RECORD_SIZE);
+    private final ByteBuffer block = ByteBuffer.allocate(PassSnapshotReader.RECORD_SIZE * 256);
+    private final short kind;
+    private final long baseVersion;
+    private byte[] previousKey;
+    private int count;
+    private boolean committed;
+
+    PassSnapshotWriter(Path target, short kind, long baseVersion) throws IOException {
+        this.target = target;
+        this.temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+        this.kind = kind;
+        this.baseVersion = baseVersion;
+        this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+        this.channel.position(PassSnapshotReader.HEADER_SIZE);
+    }
+
+    void append(String passNumber, LocalDate validFrom, LocalDate validUntil, boolean active,
+                long balanceInPaise) throws IOException {
+        byte[] key = PassSnapshotReader.encodePassNumber(passNumber);
+        if (key == null) {
+            throw new IllegalArgumentException("Pass number does not fit the snapshot format: " + passNumber);
+        }
+        if (previousKey != null && Arrays.compareUnsigned(previousKey, key) >= 0) {
+            throw new IllegalStateException("Pass numbers must be appended in ascending byte order");
+        }
+        previousKey = key;
+
+        record.clear();
+        record.put(key);
+        record.putInt((int) validFrom.toEpochDay());
+        record.putInt((int) validUntil.toEpochDay());
+        record.putInt(active ? PassSnapshotReader.FLAG_ACTIVE : 0);
+        record.putLong(balanceInPaise);
+        record.putInt(0);
+        record.flip();
+        if (block.remaining() < record.remaining()) {
+            flushBlock();
+        }
+        block.put(record);
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    Path commit(long version) throws IOException {
+        flushBlock();
+        ByteBuffer header = ByteBuffer.allocate(PassSnapshotReader.HEADER_SIZE);
+        header.putInt(PassSnapshotReader.MAGIC);
+        header.putShort(PassSnapshotReader.FORMAT_VERSION);
+        header.putShort(kind);
+        header.putLong(version);
+        header.putLong(baseVersion);
+        header.putInt(count);
+        header.flip();
+        channel.write(header, 0);
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+        return target;
+    }
+
+    private void flushBlock() throws IOException {
+        block.flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        block.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.PassValidationResponse;
+import com.example.MessMate.entity.MessPass;
+import com.example.MessMate.repository.MessPassRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory view of active mess passes for counter-side validation.
+ *
+ * Known numbers resolve from the map. The map only holds passes this
+ * instance has seen, so a miss is not trusted on its own: it falls back to a
+ * single database lookup, which populates the index on a hit and is
+ * remembered for a short while on a miss, so a mistyped number swiped again
+ * and again costs one query per TTL. MessPassService pushes every local
+ * create, balance change and deactivation through here; the periodic rebuild
+ * picks up changes made by other instances or outside the service.
+ * Balances come from the ledger, not the derived mess_passes.balance column.
+ */
+@Component
+@RequiredArgsConstructor
+public class PassValidationIndex {
+
+    private static final int MAX_NOT_FOUND = 10_000;
+
+    private final MessPassRepository messPassRepository;
+    private final PassLedgerService passLedgerService;
+
+    @Value("${app.mess-pass.index-not-found-ttl-seconds:30}")
+    private long notFoundTtlSeconds;
+
+    // Pass number -> epoch millis until which a database miss is trusted
+    private final Map<String, Long> notFound = new ConcurrentHashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder notFoundHits = new LongAdder();
+    private final LongAdder databaseFallbacks = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    private volatile Map<String, Entry> entries;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    public PassValidationResponse validate(String passNumber) {
+        lookups.increment();
+        Entry entry = entries().get(passNumber);
+        if (entry == null) {
+            entry = load(passNumber);
+            if (entry == null) {
+                return PassValidationResponse.rejected(passNumber, PassValidationResponse.Status.NOT_FOUND);
+            }
+        }
+        return entry.validate(passNumber, LocalDate.now());
+    }
+
+    private Entry load(String passNumber) {
+        long now = System.currentTimeMillis();
+        Long trustedUntil = notFound.get(passNumber);
+        if (trustedUntil != null && trustedUntil > now) {
+            notFoundHits.increment();
+            return null;
+        }
+        databaseFallbacks.increment();
+        MessPass pass = messPassRepository.findByPassNumber(passNumber).orElse(null);
+        if (pass == null) {
+            if (notFound.size() >= MAX_NOT_FOUND) {
+                notFound.clear();
+            }
+            notFound.put(passNumber, now + notFoundTtlSeconds * 1000);
+            return null;
+        }
+        pass.setBalance(passLedgerService.currentBalance(pass.getId()));
+        update(pass);
+        return Entry.of(pass, pass.getBalance());
+    }
+
+    // The pass's balance must already be the ledger figure
+    public synchronized void update(MessPass pass) {
+        notFound.remove(pass.getPassNumber());
+        if (entries == null) {
+            // Not loaded yet; the first rebuild will read the current row
+            return;
+        }
+        // Inactive passes stay until the next rebuild so repeat swipes are still answered from memory
+        entries.put(pass.getPassNumber(), Entry.of(pass, pass.getBalance()));
+    }
+
+    public synchronized void evict(Collection<String> passNumbers) {
+        if (entries != null) {
+            passNumbers.forEach(entries::remove);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.mess-pass.index-rebuild-ms:300000}",
+            initialDelayString = "${app.mess-pass.index-rebuild-ms:300000}")
+    public void scheduledRebuild() {
+        long now = System.currentTimeMillis();
+        notFound.values().removeIf(trustedUntil -> trustedUntil <= now);
+        rebuild();
+    }
+
+    // Also drops passes that are no longer active
+    public synchronized void rebuild() {
+        List<MessPass> active = messPassRepository.findByIsActiveTrue();
+        Map<Long, BigDecimal> balances = passLedgerService.activeBalances();
+        Map<String, Entry> loaded = new ConcurrentHashMap<>(active.size() * 2);
+        for (MessPass pass : active) {
+            loaded.put(pass.getPassNumber(), Entry.of(pass, balances.getOrDefault(pass.getId(), BigDecimal.ZERO)));
+        }
+        entries = loaded;
+        rebuilds.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Entry> current = entries;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activePasses", current == null ? 0 : current.size());
+        stats.put("lookups", lookups.sum());
+        stats.put("notFoundCached", notFound.size());
+        stats.put("notFoundHits", notFoundHits.sum());
+        stats.put("databaseFallbacks", databaseFallbacks.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        return stats;
+    }
+
+    private Map<String, Entry> entries() {
+        Map<String, Entry> current = entries;
+        if (current == null) {
+            synchronized (this) {
+                if (entries == null) {
+                    rebuild();
+                }
+                current = entries;
+            }
+        }
+        return current;
+    }
+
+    private record Entry(Long id, LocalDate validFrom, LocalDate validUntil, boolean active, BigDecimal balance) {
+
+        static Entry of(MessPass pass, BigDecimal balance) {
+            return new Entry(pass.getId(), pass.getValidFrom(), pass.getValidUntil(),
+                    Boolean.TRUE.equals(pass.getIsActive()), balance);
+        }
+
+        PassValidationResponse validate(String passNumber, LocalDate today) {
+            PassValidationResponse.Status status;
+            if (!active) {
+                status = PassValidationResponse.Status.INACTIVE;
+            } else if (today.isBefore(validFrom)) {
+                status = PassValidationResponse.Status.NOT_YET_VALID;
+            } else if (today.isAfter(validUntil)) {
+                status = PassValidationResponse.Status.EXPIRED;
+            } else {
+                status = PassValidationResponse.Status.VALID;
+            }
+            return new PassValidationResponse(passNumber, status == PassValidationResponse.Status.VALID, status,
+                    id, validUntil, balance);
+        }
+    }
+}
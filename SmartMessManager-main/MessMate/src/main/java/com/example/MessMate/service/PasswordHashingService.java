@@ -0,0 +1,129 @@
+package com.example.MessMate.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on a small dedicated pool instead of on request threads.
+ *
+ * At most app.auth.hashing.threads hashes run at once, so a login storm can
+ * only take that many cores away from the rest of the application. Waiting
+ * work is capped at queue-capacity; beyond that callers get an immediate
+ * TooManyRequestsException rather than queueing behind hundreds of other
+ * logins.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor hashers;
+    private final long timeoutMillis;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${app.auth.hashing.threads:2}") int threads,
+                                  @Value("${app.auth.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.auth.hashing.timeout-ms:5000}") long timeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        this.hashers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashers.shutdownNow();
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public Map<String, Object> getStats() {
+        long count = hashes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", hashers.getCorePoolSize());
+        stats.put("active", hashers.getActiveCount());
+        stats.put("queueDepth", hashers.getQueue().size());
+        stats.put("queueRemainingCapacity", hashers.getQueue().remainingCapacity());
+        stats.put("hashes", count);
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("avgHashMillis", count == 0 ? 0 : hashNanos.sum() / 1_000_000.0 / count);
+        stats.put("maxHashMillis", maxHashNanos.get() / 1_000_000.0);
+        stats.put("avgQueueWaitMillis", count == 0 ? 0 : queueWaitNanos.sum() / 1_000_000.0 / count);
+        stats.put("maxQueueWaitMillis", maxQueueWaitNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private <T> T run(Supplier<T> hash) {
+        long submitted = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(() -> {
+                long started = System.nanoTime();
+                try {
+                    return hash.get();
+                } finally {
+                    record(started - submitted, System.nanoTime() - started);
+                }
+            }, hashers);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many sign-ins in progress, please retry shortly", 1);
+        }
+
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            // A still-queued task is skipped when a hasher picks it up, so retries don't stack behind it
+            result.cancel(false);
+            throw new TooManyRequestsException("Sign-in is taking too long, please retry shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while checking password");
+        }
+    }
+
+    private void record(long waitNanos, long elapsedNanos) {
+        hashes.increment();
+        hashNanos.add(elapsedNanos);
+        queueWaitNanos.add(waitNanos);
+        maxHashNanos.accumulateAndGet(elapsedNanos, Math::max);
+        maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.Payment;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settlement source consulted when reconciling PENDING payments.
+ */
+public interface PaymentGateway {
+
+    // Final status (COMPLETED or FAILED) per transaction id; ids the gateway has not settled yet are left out
+    Map<String, Payment.PaymentStatus> lookup(List<String> transactionIds);
+}
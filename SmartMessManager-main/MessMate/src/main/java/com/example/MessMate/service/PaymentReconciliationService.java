@@ -0,0 +1,275 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.ReconciliationReport;
+import com.example.MessMate.entity.Payment;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settles PENDING payments against the payment gateway in bulk.
+ *
+ * The caller walks pending payments in id order, chunk-size rows at a time,
+ * and hands each chunk to a small worker pool. A worker asks the gateway
+ * about the whole chunk at once and applies the answers with one UPDATE per
+ * final status; payments the gateway has not settled yet stay PENDING. The
+ * pool's queue is bounded and the caller runs a chunk itself when it is
+ * full, so reading never races far ahead of the workers.
+ *
+ * Progress is kept in reconciliation_checkpoints as the highest id below
+ * which every chunk has finished. A run that crashed (heartbeat gone stale)
+ * or failed is resumed from there; a clean run starts over from the first
+ * pending payment.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    static final String CHECKPOINT_NAME = "payments";
+
+    private static final String ENSURE_CHECKPOINT = "INSERT INTO reconciliation_checkpoints (name, last_payment_id, state) " +
+            "VALUES (?, 0, 'IDLE') ON CONFLICT (name) DO NOTHING";
+
+    // Only one instance may hold the checkpoint; a RUNNING row is taken over once its heartbeat is stale
+    private static final String CLAIM_CHECKPOINT = "UPDATE reconciliation_checkpoints SET " +
+            "last_payment_id = CASE WHEN state = 'IDLE' THEN 0 ELSE last_payment_id END, " +
+            "state = 'RUNNING', heartbeat_at = now(), started_at = now(), finished_at = NULL " +
+            "WHERE name = ? AND (state <> 'RUNNING' OR heartbeat_at < now() - make_interval(secs => ?)) " +
+            "RETURNING last_payment_id";
+
+    private static final String ADVANCE_CHECKPOINT = "UPDATE reconciliation_checkpoints SET " +
+            "last_payment_id = GREATEST(last_payment_id, ?), heartbeat_at = now() WHERE name = ? AND state = 'RUNNING'";
+
+    private static final String RELEASE_CHECKPOINT = "UPDATE reconciliation_checkpoints SET " +
+            "state = ?, last_payment_id = GREATEST(last_payment_id, ?), finished_at = now() WHERE name = ?";
+
+    private static final String PENDING_CHUNK = "SELECT id, transaction_id, amount, payment_type, created_at " +
+            "FROM payments WHERE status = 'PENDING' AND id > ? ORDER BY id LIMIT ?";
+
+    // Partial, so the keyset scan only walks pending rows; not expressible as a JPA @Index
+    private static final String PENDING_INDEX = "CREATE INDEX IF NOT EXISTS idx_payments_pending_id " +
+            "ON payments(id) WHERE status = 'PENDING'";
+
+    // Re-checks PENDING so a payment settled by hand in the meantime is left alone
+    private static final String SETTLE = "UPDATE payments SET status = ? " +
+            "WHERE status = 'PENDING' AND id = ANY(?::bigint[]) RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentGateway paymentGateway;
+    private final DailyRollupService dailyRollupService;
+    private final int chunkSize;
+    private final long staleSeconds;
+    private final ThreadPoolExecutor workers;
+
+    private ReconciliationReport lastReport;
+
+    public PaymentReconciliationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                        PaymentGateway paymentGateway, DailyRollupService dailyRollupService,
+                                        @Value("${app.reconciliation.threads:4}") int threads,
+                                        @Value("${app.reconciliation.chunk-size:500}") int chunkSize,
+                                        @Value("${app.reconciliation.stale-seconds:300}") long staleSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentGateway = paymentGateway;
+        this.dailyRollupService = dailyRollupService;
+        this.chunkSize = chunkSize;
+        this.staleSeconds = staleSeconds;
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-reconciler");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPendingIndex() {
+        jdbcTemplate.execute(PENDING_INDEX);
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 23 * * *}")
+    public void scheduledReconcile() {
+        ReconciliationReport report = reconcile();
+        System.out.println("Payment reconciliation " + report.getOutcome() + ": " + report.getCompleted() + " completed, "
+                + report.getFailed() + " failed, " + report.getUnsettled() + " still pending in "
+                + report.getDurationMillis() + " ms");
+    }
+
+    public synchronized ReconciliationReport reconcile() {
+        long start = System.nanoTime();
+        jdbcTemplate.update(ENSURE_CHECKPOINT, CHECKPOINT_NAME);
+        List<Long> claimed = jdbcTemplate.queryForList(CLAIM_CHECKPOINT, Long.class, CHECKPOINT_NAME, staleSeconds);
+        if (claimed.isEmpty()) {
+            ReconciliationReport report = new ReconciliationReport();
+            report.setOutcome(ReconciliationReport.Outcome.ALREADY_RUNNING);
+            report.setFinishedAt(LocalDateTime.now());
+            return report;
+        }
+
+        long startAfter = claimed.get(0);
+        Run run = new Run(startAfter);
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        long cursor = startAfter;
+        while (run.failure.get() == null) {
+            List<PendingPayment> chunk = jdbcTemplate.query(PENDING_CHUNK, (rs, rowNum) -> new PendingPayment(
+                    rs.getLong("id"), rs.getString("transaction_id"), rs.getBigDecimal("amount"),
+                    rs.getString("payment_type"), rs.getTimestamp("created_at")), cursor, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            long sequence = run.watermark.register();
+            chunks.add(CompletableFuture.runAsync(() -> settleChunk(run, sequence, chunk), workers));
+            cursor = chunk.get(chunk.size() - 1).id();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+
+        for (CompletableFuture<Void> chunk : chunks) {
+            try {
+                chunk.join();
+            } catch (CompletionException e) {
+                run.failure.compareAndSet(null, e.getCause());
+            }
+        }
+
+        Throwable failure = run.failure.get();
+        // Never moves past a chunk that failed, so the next run picks it up again
+        long checkpoint = run.watermark.get();
+        jdbcTemplate.update(RELEASE_CHECKPOINT, failure == null ? "IDLE" : "FAILED", checkpoint, CHECKPOINT_NAME);
+
+        ReconciliationReport report = new ReconciliationReport(
+                failure == null ? ReconciliationReport.Outcome.FINISHED : ReconciliationReport.Outcome.FAILED,
+                startAfter > 0, startAfter, checkpoint, run.scanned.sum(),
+                run.completed.sum(), run.failed.sum(), run.unsettled.sum(), chunks.size(),
+                (System.nanoTime() - start) / 1_000_000, LocalDateTime.now(),
+                failure == null ? null : failure.getMessage());
+        lastReport = report;
+        return report;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("checkpoint", jdbcTemplate.queryForList(
+                "SELECT state, last_payment_id AS \"lastPaymentId\", heartbeat_at AS \"heartbeatAt\", " +
+                "started_at AS \"startedAt\", finished_at AS \"finishedAt\" FROM reconciliation_checkpoints WHERE name = ?",
+                CHECKPOINT_NAME).stream().findFirst().orElse(null));
+        status.put("pendingPayments", jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE status = 'PENDING'", Long.class));
+        status.put("threads", workers.getCorePoolSize());
+        status.put("chunkSize", chunkSize);
+        status.put("lastReport", lastReport);
+        return status;
+    }
+
+    private void settleChunk(Run run, long sequence, List<PendingPayment> chunk) {
+        if (run.failure.get() != null) {
+            // An earlier chunk failed; leave this one for the resumed run
+            return;
+        }
+        try {
+            List<String> transactionIds = new ArrayList<>(chunk.size());
+            for (PendingPayment payment : chunk) {
+                if (payment.transactionId() != null) {
+                    transactionIds.add(payment.transactionId());
+                }
+            }
+            Map<String, Payment.PaymentStatus> settled = paymentGateway.lookup(transactionIds);
+
+            StringJoiner completedIds = new StringJoiner(",", "{", "}");
+            StringJoiner failedIds = new StringJoiner(",", "{", "}");
+            Map<Long, PendingPayment> byId = new HashMap<>();
+            for (PendingPayment payment : chunk) {
+                Payment.PaymentStatus status = payment.transactionId() == null ? null : settled.get(payment.transactionId());
+                if (status == Payment.PaymentStatus.COMPLETED) {
+                    completedIds.add(payment.id().toString());
+                    byId.put(payment.id(), payment);
+                } else if (status == Payment.PaymentStatus.FAILED) {
+                    failedIds.add(payment.id().toString());
+                }
+            }
+
+            List<List<Long>> updated = transactionTemplate.execute(status -> List.of(
+                    settle(Payment.PaymentStatus.COMPLETED, completedIds),
+                    settle(Payment.PaymentStatus.FAILED, failedIds)));
+            List<Long> completed = updated.get(0);
+            for (Long id : completed) {
+                dailyRollupService.paymentCompleted(byId.get(id).toPayment());
+            }
+
+            run.scanned.add(chunk.size());
+            run.completed.add(completed.size());
+            run.failed.add(updated.get(1).size());
+            run.unsettled.add(chunk.size() - completed.size() - updated.get(1).size());
+
+            long watermark = run.watermark.complete(sequence, chunk.get(chunk.size() - 1).id());
+            jdbcTemplate.update(ADVANCE_CHECKPOINT, watermark, CHECKPOINT_NAME);
+        } catch (RuntimeException e) {
+            run.failure.compareAndSet(null, e);
+            throw e;
+        }
+    }
+
+    private List<Long> settle(Payment.PaymentStatus status, StringJoiner ids) {
+        if (ids.length() == 2) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(SETTLE, Long.class, status.name(), ids.toString());
+    }
+
+    private static final class Run {
+        private final LowWatermark watermark;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final LongAdder scanned = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder unsettled = new LongAdder();
+
+        private Run(long startAfter) {
+            this.watermark = new LowWatermark(startAfter);
+        }
+    }
+
+    private record PendingPayment(Long id, String transactionId, BigDecimal amount, String paymentType,
+                                  Timestamp createdAt) {
+
+        private Payment toPayment() {
+            Payment payment = new Payment();
+            payment.setId(id);
+            payment.setTransactionId(transactionId);
+            payment.setAmount(amount);
+            payment.setPaymentType(Payment.PaymentType.valueOf(paymentType));
+            payment.setCreatedAt(createdAt == null ? null : createdAt.toLocalDateTime());
+            payment.setStatus(Payment.PaymentStatus.COMPLETED);
+            return payment;
+        }
+    }
+}
@@ -1,24 +1,83 @@
 package com.example.MessMate.service;
 
+import com.example.MessMate.dto.CursorPage;
 import com.example.MessMate.entity.MessPass;
+import com.example.MessMate.entity.PassBalanceSnapshot;
 import com.example.MessMate.entity.Payment;
 import com.example.MessMate.entity.User;
 import com.example.MessMate.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
     
     private final PaymentRepository paymentRepository;
-    private final MessPassService messPassService;
+    private final IdGenerator idGenerator;
+    private final PassValidationIndex passValidationIndex;
+    private final JdbcStreamExporter jdbcStreamExporter;
+    private final JdbcTemplate jdbcTemplate;
+    private final DailyRollupService dailyRollupService;
+    
+    @Value("${app.payments.recharge-max-attempts:3}")
+    private int rechargeMaxAttempts;
+    
+    private static final String EXPORT_COLUMNS = "SELECT id, user_id AS \"userId\", mess_pass_id AS \"messPassId\", amount, " +
+            "payment_type AS \"paymentType\", status, transaction_id AS \"transactionId\", description, " +
+            "created_at AS \"createdAt\" FROM payments";
+    
+    private static final String AGGREGATE_COLUMNS = "SELECT CAST(created_at AS date) AS \"day\", payment_type AS \"paymentType\", " +
+            "status, COUNT(*) AS \"count\", SUM(amount) AS \"totalAmount\" FROM payments";
+    
+    private static final String UPDATE_STATUS = "UPDATE payments SET status = ? WHERE id = ? AND status = ?";
+    
+    private static final String RECHARGE_DESCRIPTION = "Mess pass recharge";
+    private static final long RETRY_BACKOFF_MILLIS = 20;
+    
+    // Finds the user's pass, inserts the payment and the ledger credit, and returns the new balance.
+    // The ledger insert is not visible to the balance subquery, hence the explicit + entry.amount.
+    private static final String RECHARGE = "WITH p AS (SELECT id, pass_number, valid_from, valid_until, is_active " +
+            "FROM mess_passes WHERE user_id = ? ORDER BY is_active DESC, id DESC LIMIT 1), " +
+            "payment AS (INSERT INTO payments (user_id, mess_pass_id, amount, payment_type, status, transaction_id, " +
+            "description, created_at) SELECT ?, p.id, ?, 'MESS_PASS_RECHARGE', 'COMPLETED', ?, ?, now() FROM p " +
+            "RETURNING id, created_at), " +
+            "entry AS (INSERT INTO pass_ledger (pass_id, amount, entry_type, reference, created_at) " +
+            "SELECT p.id, ?, 'RECHARGE', ?, now() FROM p RETURNING amount) " +
+            "SELECT payment.id AS payment_id, payment.created_at, p.id AS pass_id, p.pass_number, p.valid_from, " +
+            "p.valid_until, p.is_active, " + PassBalanceSnapshot.BALANCE_EXPRESSION + " + (SELECT amount FROM entry) AS balance " +
+            "FROM p CROSS JOIN payment LEFT JOIN pass_balance_snapshots s ON s.pass_id = p.id";
+    
+    // The same row for a recharge that already committed, found by its transaction id
+    private static final String FIND_RECHARGE = "SELECT payment.id AS payment_id, payment.created_at, p.id AS pass_id, " +
+            "p.pass_number, p.valid_from, p.valid_until, p.is_active, " + PassBalanceSnapshot.BALANCE_EXPRESSION + " AS balance " +
+            "FROM payments payment JOIN mess_passes p ON p.id = payment.mess_pass_id " +
+            "LEFT JOIN pass_balance_snapshots s ON s.pass_id = p.id WHERE payment.transaction_id = ?";
+    
+    public enum ReportFormat {
+        JSON, NDJSON, CSV
+    }
     
     public Payment createPayment(User user, BigDecimal amount, Payment.PaymentType paymentType, String description) {
         Payment payment = new Payment();
@@ -32,44 +91,193 @@ public class PaymentService {
         return paymentRepository.save(payment);
     }
     
-    public Payment processMessPassRecharge(User user, MessPass messPass, BigDecimal amount) {
-        Payment payment = new Payment();
-        payment.setUser(user);
-        payment.setMessPass(messPass);
-        payment.setAmount(amount);
-        payment.setPaymentType(Payment.PaymentType.MESS_PASS_RECHARGE);
-        payment.setStatus(Payment.PaymentStatus.COMPLETED);
-        payment.setTransactionId(generateTransactionId());
-        payment.setDescription("Mess pass recharge");
-        
-        Payment savedPayment = paymentRepository.save(payment);
-        
-        // Update mess pass balance
-        messPassService.rechargePass(messPass.getId(), amount);
+    // Records the payment and credits the ledger in one statement, so both happen or neither does.
+    // Inside a caller's transaction (an idempotent request) a failed statement aborts that transaction, so
+    // nothing is retried here: the exception marks the caller rollback-only, releasing its key, and the
+    // client retries with it. Without one, each attempt is its own statement and is retried below.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Payment rechargeMessPass(User user, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new RuntimeException("Amount must be greater than zero");
+        }
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        // Generated once so a retry after a lost commit acknowledgement finds the first attempt
+        String transactionId = generateTransactionId();
+        for (int attempt = 1; ; attempt++) {
+            Payment payment;
+            try {
+                payment = executeRecharge(user, amount, transactionId);
+            } catch (DuplicateKeyException e) {
+                if (joined) {
+                    throw e;
+                }
+                // An earlier attempt committed but its acknowledgement was lost, so its follow-up never ran
+                List<Payment> committed = jdbcTemplate.query(FIND_RECHARGE, rechargeRow(user, amount, transactionId),
+                        transactionId);
+                if (committed.isEmpty()) {
+                    throw e;
+                }
+                payment = committed.get(0);
+            } catch (TransientDataAccessException | RecoverableDataAccessException e) {
+                if (joined || attempt >= rechargeMaxAttempts) {
+                    throw e;
+                }
+                backOff(attempt);
+                continue;
+            }
+            Payment recharged = payment;
+            afterCommit(() -> {
+                passValidationIndex.update(recharged.getMessPass());
+                dailyRollupService.paymentCompleted(recharged);
+            });
+            return recharged;
+        }
+    }
+    
+    private Payment executeRecharge(User user, BigDecimal amount, String transactionId) {
+        List<Payment> result = jdbcTemplate.query(RECHARGE, rechargeRow(user, amount, transactionId),
+                user.getId(), user.getId(), amount, transactionId, RECHARGE_DESCRIPTION, amount, transactionId);
         
-        return savedPayment;
+        if (result.isEmpty()) {
+            throw new RuntimeException("Mess pass not found");
+        }
+        return result.get(0);
+    }
+    
+    private RowMapper<Payment> rechargeRow(User user, BigDecimal amount, String transactionId) {
+        return (rs, rowNum) -> {
+            MessPass messPass = new MessPass();
+            messPass.setId(rs.getLong("pass_id"));
+            messPass.setPassNumber(rs.getString("pass_number"));
+            messPass.setValidFrom(rs.getDate("valid_from").toLocalDate());
+            messPass.setValidUntil(rs.getDate("valid_until").toLocalDate());
+            messPass.setIsActive(rs.getBoolean("is_active"));
+            messPass.setBalance(rs.getBigDecimal("balance"));
+            
+            Payment payment = new Payment();
+            payment.setId(rs.getLong("payment_id"));
+            payment.setUser(user);
+            payment.setMessPass(messPass);
+            payment.setAmount(amount);
+            payment.setPaymentType(Payment.PaymentType.MESS_PASS_RECHARGE);
+            payment.setStatus(Payment.PaymentStatus.COMPLETED);
+            payment.setTransactionId(transactionId);
+            payment.setDescription(RECHARGE_DESCRIPTION);
+            payment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            return payment;
+        };
+    }
+    
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MILLIS * attempt + ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MILLIS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying recharge");
+        }
+    }
+    
+    public CursorPage<Payment> getUserPayments(User user, String cursor, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Payment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = paymentRepository.findPageByUser(user, fetch);
+        } else {
+            CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+            rows = paymentRepository.findPageByUserBefore(user, position.createdAt(), position.id(), fetch);
+        }
+        return CursorPage.of(rows, pageSize, Payment::getCreatedAt, Payment::getId);
     }
     
-    public List<Payment> getUserPayments(User user) {
-        return paymentRepository.findByUserOrderByCreatedAtDesc(user);
+    public CursorPage<Payment> getPaymentsByStatus(Payment.PaymentStatus status, String cursor, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Payment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = paymentRepository.findPageByStatus(status, fetch);
+        } else {
+            CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+            rows = paymentRepository.findPageByStatusBefore(status, position.createdAt(), position.id(), fetch);
+        }
+        return CursorPage.of(rows, pageSize, Payment::getCreatedAt, Payment::getId);
     }
     
-    public List<Payment> getPaymentsByStatus(Payment.PaymentStatus status) {
-        return paymentRepository.findByStatus(status);
+    // NDJSON export for admins; rows are streamed from the cursor and never held in memory
+    public StreamingResponseBody exportPayments(Payment.PaymentStatus status) {
+        if (status == null) {
+            return jdbcStreamExporter.ndjson(EXPORT_COLUMNS + " ORDER BY created_at DESC, id DESC");
+        }
+        return jdbcStreamExporter.ndjson(EXPORT_COLUMNS + " WHERE status = ? ORDER BY created_at DESC, id DESC",
+                status.name());
     }
     
     public Optional<Payment> getPaymentByTransactionId(String transactionId) {
         return paymentRepository.findByTransactionId(transactionId);
     }
     
+    // Guarded on the status that was read, so a race with the reconciler's SETTLE moves the rollup only once
     public Payment updatePaymentStatus(Long paymentId, Payment.PaymentStatus status) {
-        Optional<Payment> paymentOptional = paymentRepository.findById(paymentId);
-        if (paymentOptional.isPresent()) {
-            Payment payment = paymentOptional.get();
-            payment.setStatus(status);
-            return paymentRepository.save(payment);
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+        Payment.PaymentStatus previous = payment.getStatus();
+        if (previous == status) {
+            return payment;
+        }
+        if (jdbcTemplate.update(UPDATE_STATUS, status.name(), paymentId, previous.name()) == 0) {
+            throw new RuntimeException("Payment status was changed concurrently, please reload and retry");
+        }
+        payment.setStatus(status);
+        if (status == Payment.PaymentStatus.COMPLETED) {
+            dailyRollupService.paymentCompleted(payment);
+        } else if (previous == Payment.PaymentStatus.COMPLETED) {
+            dailyRollupService.paymentReversed(payment);
         }
-        throw new RuntimeException("Payment not found");
+        return payment;
+    }
+    
+    // Rows go straight from the cursor to the response; paymentType == null covers every type
+    public StreamingResponseBody streamPaymentReport(Payment.PaymentType paymentType, LocalDateTime start,
+                                                     LocalDateTime end, ReportFormat format) {
+        List<Object> args = new ArrayList<>(List.of(start, end));
+        String sql = EXPORT_COLUMNS + reportFilter(paymentType, args) + " ORDER BY created_at, id";
+        return format == ReportFormat.CSV
+                ? jdbcStreamExporter.csv(sql, args.toArray())
+                : jdbcStreamExporter.ndjson(sql, args.toArray());
+    }
+    
+    // Totals per day, type and status, grouped by the database
+    public StreamingResponseBody streamPaymentAggregate(Payment.PaymentType paymentType, LocalDateTime start,
+                                                        LocalDateTime end, ReportFormat format) {
+        List<Object> args = new ArrayList<>(List.of(start, end));
+        String sql = aggregateSql(paymentType, args);
+        return format == ReportFormat.CSV
+                ? jdbcStreamExporter.csv(sql, args.toArray())
+                : jdbcStreamExporter.ndjson(sql, args.toArray());
+    }
+    
+    public List<Map<String, Object>> getPaymentAggregate(Payment.PaymentType paymentType, LocalDateTime start,
+                                                         LocalDateTime end) {
+        List<Object> args = new ArrayList<>(List.of(start, end));
+        return jdbcTemplate.query(aggregateSql(paymentType, args), (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                row.put(rs.getMetaData().getColumnLabel(i), JdbcStreamExporter.columnValue(rs, i));
+            }
+            return row;
+        }, args.toArray());
+    }
+    
+    private static String aggregateSql(Payment.PaymentType paymentType, List<Object> args) {
+        return AGGREGATE_COLUMNS + reportFilter(paymentType, args) + " GROUP BY 1, 2, 3 ORDER BY 1, 2, 3";
+    }
+    
+    private static String reportFilter(Payment.PaymentType paymentType, List<Object> args) {
+        if (paymentType == null) {
+            return " WHERE created_at BETWEEN ? AND ?";
+        }
+        args.add(paymentType.name());
+        return " WHERE created_at BETWEEN ? AND ? AND payment_type = ?";
     }
     
     public List<Payment> getPaymentsByTypeAndDateRange(Payment.PaymentType paymentType, LocalDateTime start, LocalDateTime end) {
@@ -77,6 +285,19 @@ public class PaymentService {
     }
     
     private String generateTransactionId() {
-        return "TXN" + UUID.randomUUID().toString().substring(0, 10).toUpperCase();
+        return idGenerator.nextId("TXN");
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -0,0 +1,153 @@
+package com.example.MessMate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues and checks the stateless session tokens handed out at login.
+ *
+ * A token is base64url("kind.id.role.expiry.tokenId") + "." +
+ * base64url(HMAC-SHA256 of the first part), so checking one costs a MAC
+ * and a constant-time compare, with no database access. Logout puts the
+ * token id on an in-memory revocation list until the token would have
+ * expired anyway. The list is per instance; with several instances a
+ * revoked token stays usable on the others until it expires.
+ *
+ * When app.auth.token-secret is blank a random key is generated, which logs
+ * everyone out on restart; set it (and share it across instances) in
+ * production.
+ */
+@Service
+public class SessionTokenService {
+
+    public enum Kind {
+        USER, STUDENT
+    }
+
+    public record Principal(Kind kind, Long id, String role, long expiresAt, long tokenId) {
+    }
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final IdGenerator idGenerator;
+    // Mac instances are not thread-safe and costly to look up, so each request thread keeps one
+    private final ThreadLocal<Mac> macs;
+    // token id -> expiry (epoch seconds)
+    private final Map<Long, Long> revoked = new ConcurrentHashMap<>();
+
+    public SessionTokenService(IdGenerator idGenerator,
+                               @Value("${app.auth.token-secret:}") String secret,
+                               @Value("${app.auth.token-ttl-minutes:720}") long ttlMinutes) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            System.out.println("app.auth.token-secret is not set; using a random key, sessions will not survive a restart");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttlSeconds = TimeUnit.MINUTES.toSeconds(ttlMinutes);
+        this.idGenerator = idGenerator;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String issue(Kind kind, Long id, String role) {
+        long expiresAt = Instant.now().getEpochSecond() + ttlSeconds;
+        String payload = kind.name().charAt(0) + "." + id + "." + role + "." + expiresAt + "." + idGenerator.nextId();
+        String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + ENCODER.encodeToString(sign(encoded));
+    }
+
+    public Optional<Principal> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.lastIndexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        String encoded = token.substring(0, dot);
+        byte[] signature;
+        String payload;
+        try {
+            signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encoded))) {
+                return Optional.empty();
+            }
+            payload = new String(DECODER.decode(encoded), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        // The payload is ours from here on, so it is well formed
+        String[] parts = payload.split("\\.");
+        Principal principal = new Principal(parts[0].equals("S") ? Kind.STUDENT : Kind.USER, Long.parseLong(parts[1]),
+                parts[2], Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+        if (principal.expiresAt() <= Instant.now().getEpochSecond() || revoked.containsKey(principal.tokenId())) {
+            return Optional.empty();
+        }
+        return Optional.of(principal);
+    }
+
+    // Principal of the current request, if it carried a valid token
+    public static Optional<Principal> currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Principal principal) {
+            return Optional.of(principal);
+        }
+        return Optional.empty();
+    }
+
+    public void revoke(Principal principal) {
+        revoked.put(principal.tokenId(), principal.expiresAt());
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeRevoked() {
+        long now = Instant.now().getEpochSecond();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("revokedTokens", revoked.size());
+        return stats;
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.MessMate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style 63-bit ids: 41 bits of milliseconds since 2024-01-01,
+ * 10 bits of node id and a 12-bit per-millisecond sequence.
+ *
+ * Ids from one node are strictly increasing, and nodes configured with
+ * distinct app.id.node-id values can never collide. The timestamp and
+ * sequence live together in one AtomicLong advanced by CAS, so there is no
+ * lock. When a millisecond's 4096 sequence values run out, or the clock
+ * steps backwards, the generator borrows from the following millisecond
+ * instead of waiting or repeating.
+ *
+ * Time-ordered ids also keep inserts at the right-hand edge of the unique
+ * indexes instead of scattering them like random UUID slices.
+ */
+@Component
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastTick = new AtomicLong();
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${app.id.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        long tick;
+        long previous;
+        do {
+            previous = lastTick.get();
+            long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            tick = now > previous ? now : previous + 1;
+        } while (!lastTick.compareAndSet(previous, tick));
+
+        long millis = tick >>> SEQUENCE_BITS;
+        long sequence = tick & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    @Override
+    public String nextId(String prefix) {
+        long id = nextId();
+        char[] chars = new char[prefix.length() + ENCODED_LENGTH];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        for (int i = chars.length - 1; i >= prefix.length(); i--) {
+            chars[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.StudentImportReport;
+import com.example.MessMate.dto.StudentSignupRequest;
+import com.example.MessMate.entity.Student;
+import com.example.MessMate.repository.StudentRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Registers a semester's worth of students from one CSV or NDJSON upload.
+ *
+ * The whole file is validated before anything is written: required fields,
+ * duplicates within the file, and email / roll number clashes with existing
+ * students, checked a few hundred keys per query instead of two queries per
+ * row. Surviving rows are hashed in parallel on a pool of their own, at
+ * most half the cores by default so logins and menu reads keep the rest,
+ * and inserted with batched JDBC statements. Only one import runs at a
+ * time; a second upload gets TooManyRequestsException. A row that loses a
+ * race with a concurrent signup is skipped by ON CONFLICT and reported,
+ * never failing the rest of its batch.
+ */
+@Service
+public class StudentImportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String[] COLUMNS = {"name", "email", "password", "rollNumber", "hostel", "room", "phone"};
+    private static final int LOOKUP_CHUNK = 500;
+    private static final int INSERT_BATCH = 500;
+
+    private static final String INSERT = "INSERT INTO students " +
+            "(name, email, password, roll_number, hostel, room, phone, is_active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, true, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final StudentRepository studentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final StudentSearchIndex studentSearchIndex;
+    private final IdentityCache identityCache;
+    private final int maxRows;
+    private final ExecutorService hashers;
+    private final Semaphore running = new Semaphore(1);
+
+    public StudentImportService(StudentRepository studentRepository, JdbcTemplate jdbcTemplate,
+                                PasswordEncoder passwordEncoder, ObjectMapper objectMapper,
+                                StudentSearchIndex studentSearchIndex, IdentityCache identityCache,
+                                @Value("${app.students.import.max-rows:20000}") int maxRows,
+                                @Value("${app.students.import.hash-threads:0}") int hashThreads) {
+        this.studentRepository = studentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.studentSearchIndex = studentSearchIndex;
+        this.identityCache = identityCache;
+        this.maxRows = maxRows;
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "student-import-hasher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashers.shutdownNow();
+    }
+
+    public StudentImportReport importStudents(InputStream body, Format format) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new TooManyRequestsException("Another student import is running, please retry when it finishes", 30);
+        }
+        try {
+            return runImport(body, format);
+        } finally {
+            running.release();
+        }
+    }
+
+    private StudentImportReport runImport(InputStream body, Format format) throws IOException {
+        long start = System.nanoTime();
+        List<StudentImportReport.RowError> errors = new ArrayList<>();
+        List<Row> rows = parse(body, format, errors);
+        int total = rows.size() + errors.size();
+
+        List<Row> valid = validate(rows, errors);
+        rejectExisting(valid, errors);
+        List<Row> accepted = new ArrayList<>();
+        for (Row row : valid) {
+            if (!row.rejected) {
+                accepted.add(row);
+            }
+        }
+
+        hashPasswords(accepted);
+        int imported = insert(accepted, errors);
+
+        errors.sort(Comparator.comparingInt(StudentImportReport.RowError::getLine));
+        return new StudentImportReport(total, imported, errors.size(), (System.nanoTime() - start) / 1_000_000, errors);
+    }
+
+    private List<Row> parse(InputStream body, Format format, List<StudentImportReport.RowError> errors) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int[] columnIndex = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && columnIndex == null) {
+                columnIndex = headerIndex(splitCsv(line));
+                continue;
+            }
+            if (rows.size() + errors.size() >= maxRows) {
+                throw new RuntimeException("Import is limited to " + maxRows + " rows per file");
+            }
+            try {
+                StudentSignupRequest request = format == Format.CSV
+                        ? fromCsv(splitCsv(line), columnIndex)
+                        : objectMapper.readValue(line, StudentSignupRequest.class);
+                rows.add(new Row(lineNumber, trimmed(request)));
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                errors.add(new StudentImportReport.RowError(lineNumber, null, null,
+                        StudentImportReport.Reason.MALFORMED, "Could not parse row"));
+            }
+        }
+        return rows;
+    }
+
+    // Required fields and duplicates inside the file; the first occurrence of an email or roll number wins
+    private List<Row> validate(List<Row> rows, List<StudentImportReport.RowError> errors) {
+        List<Row> valid = new ArrayList<>(rows.size());
+        Set<String> emails = new HashSet<>();
+        Set<String> rollNumbers = new HashSet<>();
+        for (Row row : rows) {
+            StudentSignupRequest request = row.request;
+            String missing = missingField(request);
+            if (missing != null) {
+                errors.add(error(row, StudentImportReport.Reason.MISSING_FIELD, missing + " is required"));
+            } else if (!emails.add(request.getEmail())) {
+                errors.add(error(row, StudentImportReport.Reason.DUPLICATE_IN_FILE, "Email appears earlier in the file"));
+            } else if (!rollNumbers.add(request.getRollNumber())) {
+                errors.add(error(row, StudentImportReport.Reason.DUPLICATE_IN_FILE, "Roll number appears earlier in the file"));
+            } else {
+                valid.add(row);
+            }
+        }
+        return valid;
+    }
+
+    private void rejectExisting(List<Row> rows, List<StudentImportReport.RowError> errors) {
+        Set<String> existingEmails = new HashSet<>();
+        Set<String> existingRollNumbers = new HashSet<>();
+        for (int from = 0; from < rows.size(); from += LOOKUP_CHUNK) {
+            List<Row> chunk = rows.subList(from, Math.min(rows.size(), from + LOOKUP_CHUNK));
+            existingEmails.addAll(studentRepository.findExistingEmails(
+                    chunk.stream().map(row -> row.request.getEmail()).toList()));
+            existingRollNumbers.addAll(studentRepository.findExistingRollNumbers(
+                    chunk.stream().map(row -> row.request.getRollNumber()).toList()));
+        }
+        for (Row row : rows) {
+            if (existingEmails.contains(row.request.getEmail())) {
+                row.rejected = true;
+                errors.add(error(row, StudentImportReport.Reason.EMAIL_EXISTS, "Email already exists"));
+            } else if (existingRollNumbers.contains(row.request.getRollNumber())) {
+                row.rejected = true;
+                errors.add(error(row, StudentImportReport.Reason.ROLL_NUMBER_EXISTS, "Roll number already exists"));
+            }
+        }
+    }
+
+    private void hashPasswords(List<Row> rows) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            futures.add(CompletableFuture.runAsync(
+                    () -> row.passwordHash = passwordEncoder.encode(row.request.getPassword()), hashers));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private int insert(List<Row> rows, List<StudentImportReport.RowError> errors) {
+        int imported = 0;
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH) {
+            List<Row> batch = rows.subList(from, Math.min(rows.size(), from + INSERT_BATCH));
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                StudentSignupRequest request = row.request;
+                args.add(new Object[]{request.getName(), request.getEmail(), row.passwordHash, request.getRollNumber(),
+                        request.getHostel(), request.getRoom(), request.getPhone(), now, now});
+            }
+            int[] counts = jdbcTemplate.batchUpdate(INSERT, args);
+
+            List<String> insertedEmails = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (counts[i] == 0) {
+                    errors.add(error(batch.get(i), StudentImportReport.Reason.CONFLICT,
+                            "Email or roll number was registered while the import ran"));
+                } else {
+                    insertedEmails.add(batch.get(i).request.getEmail());
+                }
+            }
+            imported += insertedEmails.size();
+            if (!insertedEmails.isEmpty()) {
+                for (Student student : studentRepository.findByEmailIn(insertedEmails)) {
+                    studentSearchIndex.update(student);
+                    identityCache.remember(student);
+                }
+            }
+        }
+        return imported;
+    }
+
+    private static int[] headerIndex(List<String> header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        int[] index = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Integer position = positions.get(COLUMNS[i].toLowerCase(Locale.ROOT));
+            if (position == null) {
+                throw new RuntimeException("CSV header is missing column '" + COLUMNS[i] + "'");
+            }
+            index[i] = position;
+        }
+        return index;
+    }
+
+    private static StudentSignupRequest fromCsv(List<String> fields, int[] index) {
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            values[i] = index[i] < fields.size() ? fields.get(index[i]) : null;
+        }
+        StudentSignupRequest request = new StudentSignupRequest();
+        request.setName(values[0]);
+        request.setEmail(values[1]);
+        request.setPassword(values[2]);
+        request.setRollNumber(values[3]);
+        request.setHostel(values[4]);
+        request.setRoom(values[5]);
+        request.setPhone(values[6]);
+        return request;
+    }
+
+    // RFC 4180 fields on a single line; quoted fields may contain commas and doubled quotes
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static StudentSignupRequest trimmed(StudentSignupRequest request) {
+        request.setName(trim(request.getName()));
+        request.setEmail(trim(request.getEmail()));
+        request.setRollNumber(trim(request.getRollNumber()));
+        request.setHostel(trim(request.getHostel()));
+        request.setRoom(trim(request.getRoom()));
+        request.setPhone(trim(request.getPhone()));
+        return request;
+    }
+
+    private static String trim(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String missingField(StudentSignupRequest request) {
+        if (request.getName() == null) {
+            return "name";
+        }
+        if (request.getEmail() == null) {
+            return "email";
+        }
+        if (request.getPassword() == null || request.getPassword().isEmpty()) {
+            return "password";
+        }
+        if (request.getRollNumber() == null) {
+            return "rollNumber";
+        }
+        if (request.getHostel() == null) {
+            return "hostel";
+        }
+        if (request.getRoom() == null) {
+            return "room";
+        }
+        if (request.getPhone() == null) {
+            return "phone";
+        }
+        return null;
+    }
+
+    private static StudentImportReport.RowError error(Row row, StudentImportReport.Reason reason, String message) {
+        return new StudentImportReport.RowError(row.line, row.request.getEmail(), row.request.getRollNumber(), reason, message);
+    }
+
+    private static final class Row {
+        private final int line;
+        private final StudentSignupRequest request;
+        private boolean rejected;
+        private String passwordHash;
+
+        private Row(int line, StudentSignupRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.StudentResponse;
+import com.example.MessMate.entity.Student;
+import com.example.MessMate.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Name search over all students, backed by a {@link TrigramIndex}.
+ *
+ * The index is loaded with one findAll on first use and is then kept current
+ * by StudentService on signup, activation and deactivation.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudentSearchIndex {
+
+    private final StudentRepository studentRepository;
+
+    private final TrigramIndex<StudentResponse> index = new TrigramIndex<>();
+    private final Object loadLock = new Object();
+    private volatile boolean loaded;
+
+    public List<StudentResponse> search(String name) {
+        ensureLoaded();
+        return index.search(name);
+    }
+
+    public void update(Student student) {
+        synchronized (loadLock) {
+            // Nothing to patch yet; the initial load will pick the student up
+            if (!loaded) {
+                return;
+            }
+        }
+        index.put(student.getId(), student.getName(), StudentResponse.fromStudent(student));
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            for (Student student : studentRepository.findAll()) {
+                index.put(student.getId(), student.getName(), StudentResponse.fromStudent(student));
+            }
+            loaded = true;
+        }
+    }
+}
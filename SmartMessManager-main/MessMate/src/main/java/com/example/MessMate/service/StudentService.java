@@ -6,7 +6,6 @@ import com.example.MessMate.dto.StudentResponse;
 import com.example.MessMate.entity.Student;
 import com.example.MessMate.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,16 +17,22 @@ import java.util.stream.Collectors;
 public class StudentService {
     
     private final StudentRepository studentRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final StudentSearchIndex studentSearchIndex;
+    private final IdentityCache identityCache;
+    private final SessionTokenService sessionTokenService;
     
-    public StudentResponse signup(StudentSignupRequest request) {
-        // Check if student already exists by email
-        if (studentRepository.existsByEmail(request.getEmail())) {
+    public StudentResponse signup(StudentSignupRequest request, String clientAddress) {
+        loginRateLimiter.check(null, clientAddress);
+        
+        // Check if student already exists by email or roll number, in one query
+        List<String> conflicts = studentRepository.findConflictingEmails(request.getEmail(), request.getRollNumber());
+        if (conflicts.contains(request.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
         
-        // Check if roll number already exists
-        if (studentRepository.existsByRollNumber(request.getRollNumber())) {
+        if (!conflicts.isEmpty()) {
             throw new RuntimeException("Roll number already exists");
         }
         
@@ -35,7 +40,7 @@ public class StudentService {
         Student student = new Student();
         student.setName(request.getName());
         student.setEmail(request.getEmail());
-        student.setPassword(passwordEncoder.encode(request.getPassword()));
+        student.setPassword(passwordHashingService.encode(request.getPassword()));
         student.setRollNumber(request.getRollNumber());
         student.setHostel(request.getHostel());
         student.setRoom(request.getRoom());
@@ -43,17 +48,32 @@ public class StudentService {
         student.setIsActive(true);
         
         Student savedStudent = studentRepository.save(student);
+        studentSearchIndex.update(savedStudent);
+        identityCache.remember(savedStudent);
         return StudentResponse.fromStudent(savedStudent);
     }
     
-    public StudentResponse login(StudentLoginRequest request) {
-        Optional<Student> studentOptional = studentRepository.findByEmail(request.getEmail());
+    public StudentResponse login(StudentLoginRequest request, String clientAddress) {
+        loginRateLimiter.check(request.getEmail(), clientAddress);
+        
+        // Unknown and deactivated accounts are turned away from the id projection, before any password check
+        Optional<IdentityCache.Identity> identity = identityCache.student(request.getEmail());
+        if (identity.isEmpty()) {
+            throw new RuntimeException("Student not found with this email");
+        }
+        if (!identity.get().active()) {
+            throw new RuntimeException("Student account is deactivated");
+        }
+        
+        Optional<Student> studentOptional = studentRepository.findById(identity.get().id());
         
         if (studentOptional.isEmpty()) {
+            identityCache.evictStudent(request.getEmail());
             throw new RuntimeException("Student not found with this email");
         }
         
         Student student = studentOptional.get();
+        identityCache.remember(student);
         
         // Check if student is active
         if (!student.getIsActive()) {
@@ -61,11 +81,13 @@ public class StudentService {
         }
         
         // Check password
-        if (!passwordEncoder.matches(request.getPassword(), student.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), student.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
         
-        return StudentResponse.fromStudent(student);
+        StudentResponse response = StudentResponse.fromStudent(student);
+        response.setToken(sessionTokenService.issue(SessionTokenService.Kind.STUDENT, student.getId(), "STUDENT"));
+        return response;
     }
     
     public Optional<StudentResponse> getStudentByEmail(String email) {
@@ -93,10 +115,7 @@ public class StudentService {
     }
     
     public List<StudentResponse> searchStudentsByName(String name) {
-        return studentRepository.findByNameContainingIgnoreCase(name)
-                .stream()
-                .map(StudentResponse::fromStudent)
-                .collect(Collectors.toList());
+        return studentSearchIndex.search(name);
     }
     
     public long getTotalActiveStudents() {
@@ -112,7 +131,8 @@ public class StudentService {
         if (studentOptional.isPresent()) {
             Student student = studentOptional.get();
             student.setIsActive(false);
-            studentRepository.save(student);
+            studentSearchIndex.update(studentRepository.save(student));
+            identityCache.evict(student);
         } else {
             throw new RuntimeException("Student not found");
         }
@@ -123,7 +143,8 @@ public class StudentService {
         if (studentOptional.isPresent()) {
             Student student = studentOptional.get();
             student.setIsActive(true);
-            studentRepository.save(student);
+            studentSearchIndex.update(studentRepository.save(student));
+            identityCache.evict(student);
         } else {
             throw new RuntimeException("Student not found");
         }
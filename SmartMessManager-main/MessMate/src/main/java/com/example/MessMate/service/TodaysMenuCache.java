@@ -0,0 +1,131 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.ApiResponse;
+import com.example.MessMate.entity.DailyMenu;
+import com.example.MessMate.repository.DailyMenuRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the /api/menu/daily/today response pre-rendered as JSON bytes.
+ *
+ * The body is rendered once per version and per day, in identity and gzip form,
+ * and tagged with a strong ETag so polling clients can revalidate without the
+ * database being touched.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodaysMenuCache {
+
+    private final DailyMenuRepository dailyMenuRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<RenderedMenu> current = new AtomicReference<>();
+    private final Object renderLock = new Object();
+
+    public RenderedMenu get() {
+        RenderedMenu rendered = current.get();
+        if (isCurrent(rendered, LocalDate.now())) {
+            return rendered;
+        }
+        return render();
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    // Only changes to today's menu matter; other dates are rendered on demand elsewhere
+    public void invalidate(LocalDate menuDate) {
+        if (menuDate == null || menuDate.equals(LocalDate.now())) {
+            invalidate();
+        }
+    }
+
+    private boolean isCurrent(RenderedMenu rendered, LocalDate today) {
+        return rendered != null && rendered.version() == version.get() && rendered.menuDate().equals(today);
+    }
+
+    private RenderedMenu render() {
+        synchronized (renderLock) {
+            LocalDate today = LocalDate.now();
+            long stamp = version.get();
+            RenderedMenu rendered = current.get();
+            if (isCurrent(rendered, today)) {
+                return rendered;
+            }
+
+            List<DailyMenu> menu = dailyMenuRepository.findWithMenuItemsByMenuDateAndIsActiveTrue(today);
+            byte[] identity = serialize(ApiResponse.success("Today's menu retrieved successfully", menu));
+            String hash = hash(identity);
+
+            rendered = new RenderedMenu(today, stamp, identity, gzip(identity),
+                    "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+            current.set(rendered);
+            return rendered;
+        }
+    }
+
+    private byte[] serialize(ApiResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to render today's menu", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record RenderedMenu(LocalDate menuDate, long version, byte[] identity, byte[] gzip,
+                               String etag, String gzipEtag) {
+
+        // If-None-Match uses weak comparison, so W/ prefixes are ignored
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.MessMate.service;
+
+// Thrown when a caller is over a rate limit or a bounded queue is full; maps to 429 with Retry-After
+public class TooManyRequestsException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
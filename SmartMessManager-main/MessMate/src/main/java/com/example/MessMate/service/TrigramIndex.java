@@ -0,0 +1,161 @@
+package com.example.MessMate.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index used for name search.
+ *
+ * Every word is padded ("  word ") before being cut into trigrams, so word
+ * starts carry their own grams and prefixes rank well. Candidates are ranked
+ * by prefix match, then substring match, then by the share of query trigrams
+ * they contain, which keeps near misses such as "paner" finding "Paneer".
+ */
+public class TrigramIndex<T> {
+
+    private static final double MIN_SIMILARITY = 0.5;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, Entry<T>> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(Long id, String text, T value) {
+        String normalized = normalize(text);
+        Set<String> grams = trigrams(normalized);
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            entries.put(id, new Entry<>(normalized, grams, value));
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> search(String query) {
+        String normalized = normalize(query);
+        List<Match<T>> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < 3) {
+                // Too short to carry interior trigrams; a scan over the names is cheap enough
+                for (Entry<T> entry : entries.values()) {
+                    if (entry.text().contains(normalized)) {
+                        matches.add(new Match<>(entry, rank(entry, normalized, 1.0)));
+                    }
+                }
+            } else {
+                Set<String> queryGrams = trigrams(normalized);
+                Map<Long, Integer> shared = new HashMap<>();
+                for (String gram : queryGrams) {
+                    Set<Long> ids = postings.get(gram);
+                    if (ids != null) {
+                        for (Long id : ids) {
+                            shared.merge(id, 1, Integer::sum);
+                        }
+                    }
+                }
+
+                for (Map.Entry<Long, Integer> candidate : shared.entrySet()) {
+                    Entry<T> entry = entries.get(candidate.getKey());
+                    double similarity = candidate.getValue() / (double) queryGrams.size();
+                    if (similarity >= MIN_SIMILARITY || entry.text().contains(normalized)) {
+                        matches.add(new Match<>(entry, rank(entry, normalized, similarity)));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.<Match<T>>comparingDouble(Match::score).reversed()
+                .thenComparing(match -> match.entry().text()));
+        List<T> results = new ArrayList<>(matches.size());
+        for (Match<T> match : matches) {
+            results.add(match.entry().value());
+        }
+        return results;
+    }
+
+    private void removeInternal(Long id) {
+        Entry<T> previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static double rank(Entry<?> entry, String query, double similarity) {
+        if (entry.text().startsWith(query)) {
+            return 2 + similarity;
+        }
+        if (entry.text().contains(query)) {
+            return 1 + similarity;
+        }
+        return similarity;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> trigrams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private record Entry<T>(String text, Set<String> grams, T value) {
+    }
+
+    private record Match<T>(Entry<T> entry, double score) {
+    }
+}
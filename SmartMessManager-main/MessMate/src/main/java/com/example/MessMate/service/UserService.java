@@ -4,11 +4,12 @@ import com.example.MessMate.dto.LoginRequest;
 import com.example.MessMate.dto.SignupRequest;
 import com.example.MessMate.dto.UserResponse;
 import com.example.MessMate.entity.User;
+import com.example.MessMate.repository.StudentRepository;
 import com.example.MessMate.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -16,15 +17,22 @@ import java.util.Optional;
 public class UserService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final StudentRepository studentRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final IdentityCache identityCache;
+    private final SessionTokenService sessionTokenService;
     
-    public UserResponse signup(SignupRequest request) {
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
+    public UserResponse signup(SignupRequest request, String clientAddress) {
+        loginRateLimiter.check(null, clientAddress);
+        
+        // Check if user already exists (email and roll number in one query)
+        List<String> conflicts = userRepository.findConflictingEmails(request.getEmail(), request.getRollNumber());
+        if (conflicts.contains(request.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
         
-        if (userRepository.existsByRollNumber(request.getRollNumber())) {
+        if (!conflicts.isEmpty()) {
             throw new RuntimeException("Roll number already exists");
         }
         
@@ -32,7 +40,7 @@ public class UserService {
         User user = new User();
         user.setName(request.getName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
         
         // Set user type from request, default to STUDENT if not provided
         if (request.getUserType() != null && !request.getUserType().isEmpty()) {
@@ -47,10 +55,13 @@ public class UserService {
         user.setPhone(request.getPhone());
         
         User savedUser = userRepository.save(user);
+        identityCache.remember(savedUser);
         return UserResponse.fromUser(savedUser);
     }
     
-    public UserResponse login(LoginRequest request) {
+    public UserResponse login(LoginRequest request, String clientAddress) {
+        loginRateLimiter.check(request.getEmail(), clientAddress);
+        
         Optional<User> userOptional = userRepository.findByEmail(request.getEmail());
         
         if (userOptional.isEmpty()) {
@@ -60,7 +71,7 @@ public class UserService {
         User user = userOptional.get();
         
         // Check password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
         
@@ -69,7 +80,10 @@ public class UserService {
             throw new RuntimeException("Invalid user type");
         }
         
-        return UserResponse.fromUser(user);
+        identityCache.remember(user);
+        UserResponse response = UserResponse.fromUser(user);
+        response.setToken(sessionTokenService.issue(SessionTokenService.Kind.USER, user.getId(), user.getUserType().name()));
+        return response;
     }
     
     public Optional<UserResponse> getUserByEmail(String email) {
@@ -77,13 +91,38 @@ public class UserService {
                 .map(UserResponse::fromUser);
     }
     
+    // Id-only reference for the logged-in user, straight from the session token
+    // Orders are held against users, so a signed-in student maps to the user account sharing their email
+    public Optional<User> getCurrentUserReference() {
+        return SessionTokenService.currentPrincipal()
+                .flatMap(principal -> {
+                    if (principal.kind() == SessionTokenService.Kind.STUDENT) {
+                        return studentRepository.findEmailById(principal.id()).flatMap(this::getUserReference);
+                    }
+                    User user = new User();
+                    user.setId(principal.id());
+                    return Optional.of(user);
+                });
+    }
+    
+    // Id-only reference for queries that filter by user; resolved through the identity cache
+    public Optional<User> getUserReference(String email) {
+        return identityCache.user(email)
+                .map(identity -> {
+                    User user = new User();
+                    user.setId(identity.id());
+                    user.setEmail(email);
+                    return user;
+                });
+    }
+    
     public void initializeDefaultAdmin() {
         // Check if admin already exists
         if (!userRepository.existsByEmail("admin@messmate.com")) {
             User admin = new User();
             admin.setName("System Administrator");
             admin.setEmail("admin@messmate.com");
-            admin.setPassword(passwordEncoder.encode("admin123"));
+            admin.setPassword(passwordHashingService.encode("admin123"));
             admin.setUserType(User.UserType.ADMIN);
             admin.setRollNumber("ADMIN001");
             admin.setHostel("Admin Quarter");
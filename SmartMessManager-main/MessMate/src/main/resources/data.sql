@@ -27,3 +27,12 @@ CREATE INDEX IF NOT EXISTS idx_mess_passes_user_id ON mess_passes(user_id);
 CREATE INDEX IF NOT EXISTS idx_mess_passes_pass_number ON mess_passes(pass_number);
 CREATE INDEX IF NOT EXISTS idx_payments_user_id ON payments(user_id);
 CREATE INDEX IF NOT EXISTS idx_payments_transaction_id ON payments(transaction_id);
+
+-- Composite indexes for (created_at, id) keyset pagination of history endpoints
+CREATE INDEX IF NOT EXISTS idx_meal_orders_user_created ON meal_orders(user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_meal_orders_status_created ON meal_orders(status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_payments_user_created ON payments(user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_payments_status_created ON payments(status, created_at DESC, id DESC);
+
+-- Ledger tail lookups (entries newer than a pass snapshot)
+CREATE INDEX IF NOT EXISTS idx_pass_ledger_pass_id ON pass_ledger(pass_id, id);
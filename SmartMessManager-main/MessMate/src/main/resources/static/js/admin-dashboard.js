@@ -719,17 +719,14 @@ function displayFilteredStudents(filteredStudents) {
 // Report generation functions
 async function generateDailyReport() {
     try {
-        const response = await fetch('http://localhost:8080/api/orders');
+        // Pre-aggregated on the server; no need to download every order
+        const date = new Date().toISOString().split('T')[0];
+        const response = await fetch(`http://localhost:8080/api/stats/range?from=${date}&to=${date}`);
         const result = await response.json();
         if (result.success) {
-            const orders = result.data;
+            const totals = result.data.totals;
             const today = new Date().toDateString();
-            const todayOrders = orders.filter(order => 
-                new Date(order.createdAt).toDateString() === today
-            );
-            
-            const totalRevenue = todayOrders.reduce((sum, order) => sum + order.totalAmount, 0);
-            alert(`Daily Report Generated!\n\nDate: ${today}\nTotal Orders: ${todayOrders.length}\nTotal Revenue: ₹${totalRevenue}\n\nDetailed report would be exported to PDF.`);
+            alert(`Daily Report Generated!\n\nDate: ${today}\nTotal Orders: ${totals.orderCount}\nTotal Revenue: ₹${totals.orderRevenue}\nMess Pass Recharges: ₹${totals.rechargeTotal}\n\nDetailed report would be exported to PDF.`);
         }
     } catch (error) {
         alert('Error generating daily report. Please try again.');
@@ -1114,11 +1111,24 @@ window.addEventListener('click', function(event) {
 
 function logout() {
     if (confirm('Are you sure you want to logout?')) {
+        revokeSessionToken();
         localStorage.removeItem('loggedInUser');
         window.location.href = 'login.html';
     }
 }
 
+// Tell the server to revoke the session token issued at login (best effort)
+function revokeSessionToken() {
+    const user = JSON.parse(localStorage.getItem('loggedInUser') || 'null');
+    if (user && user.token) {
+        fetch('http://localhost:8080/api/auth/logout', {
+            method: 'POST',
+            headers: { 'Authorization': 'Bearer ' + user.token },
+            keepalive: true
+        }).catch(() => {});
+    }
+}
+
 // Setup admin change password form
 function setupAdminChangePasswordForm() {
     const changePasswordForm = document.getElementById('admin-change-password-form');
@@ -273,6 +273,9 @@ function updateMealSection(mealType, dayMenus, bookings) {
     }
 }
 
+// Idempotency keys of meal orders still waiting for a confirmed save, by date and meal, reused on every retry
+const pendingBookings = {};
+
 // Save meal bookings
 async function saveMealBookings() {
     const selectedDate = document.getElementById('booking-date').value;
@@ -290,37 +293,62 @@ async function saveMealBookings() {
     // Save to local storage
     localStorage.setItem(`bookings_${selectedDate}`, JSON.stringify(bookings));
     
-    // Show success message
     const bookedMeals = Object.keys(bookings);
-    if (bookedMeals.length > 0) {
-        showNotification(`Meal bookings saved for: ${bookedMeals.join(', ')}!`, 'success');
-    } else {
+    if (bookedMeals.length === 0) {
         showNotification('No meals booked. Please select available meals to book.', 'info');
+        return;
+    }
+    
+    const user = JSON.parse(localStorage.getItem('loggedInUser'));
+    if (!user || !user.token) {
+        showNotification('Your session has expired. Please log in again to book meals.', 'error');
+        return;
     }
     
-    // API call to save meal bookings
+    // API call to save meal bookings: one order per meal, built from the item ids on that day's menu
     try {
-        const user = JSON.parse(localStorage.getItem('loggedInUser'));
-        const response = await fetch('http://localhost:8080/api/orders', {
-            method: 'POST',
-            headers: {
-                'Content-Type': 'application/json',
-            },
-            body: JSON.stringify({
-                userEmail: user.email,
-                orderDate: selectedDate,
-                items: Object.entries(bookings).map(([mealType, items]) => ({
-                    mealType: mealType.toUpperCase(),
-                    menuItems: items
-                }))
-            })
-        });
+        const menuResponse = await fetch(`http://localhost:8080/api/menu/daily/date/${selectedDate}`);
+        const menuResult = await menuResponse.json();
+        const dailyMenus = menuResult.success ? menuResult.data || [] : [];
         
-        const result = await response.json();
-        if (result.success) {
-            showNotification('Meal bookings saved successfully!', 'success');
+        const failed = [];
+        for (const mealType of bookedMeals) {
+            const dailyMenu = dailyMenus.find(menu => menu.mealType === mealType.toUpperCase());
+            if (!dailyMenu || !dailyMenu.menuItems || dailyMenu.menuItems.length === 0) {
+                failed.push(`${mealType} (no menu items)`);
+                continue;
+            }
+            const body = JSON.stringify({
+                mealType: mealType.toUpperCase(),
+                items: dailyMenu.menuItems.map(item => ({ menuItemId: item.id, quantity: 1 }))
+            });
+            // A retry of the same booking keeps its key so the server can replay instead of booking twice
+            const pendingKey = `${selectedDate}:${mealType}`;
+            if (!pendingBookings[pendingKey] || pendingBookings[pendingKey].body !== body) {
+                pendingBookings[pendingKey] = { body, key: newIdempotencyKey() };
+            }
+            const response = await fetch('http://localhost:8080/api/orders', {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                    'Authorization': 'Bearer ' + user.token,
+                    'Idempotency-Key': pendingBookings[pendingKey].key,
+                },
+                body
+            });
+            
+            const result = await response.json();
+            if (result.success) {
+                delete pendingBookings[pendingKey];
+            } else {
+                failed.push(`${mealType} (${result.message})`);
+            }
+        }
+        
+        if (failed.length === 0) {
+            showNotification(`Meal bookings saved for: ${bookedMeals.join(', ')}!`, 'success');
         } else {
-            showNotification('Failed to save bookings: ' + result.message, 'error');
+            showNotification('Failed to save bookings: ' + failed.join(', '), 'error');
         }
     } catch (error) {
         console.error('Error saving bookings:', error);
@@ -328,6 +356,13 @@ async function saveMealBookings() {
     }
 }
 
+function newIdempotencyKey() {
+    if (window.crypto && crypto.randomUUID) {
+        return crypto.randomUUID();
+    }
+    return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
+}
+
 // Submit feedback
 function submitFeedback(e) {
     e.preventDefault();
@@ -432,12 +467,25 @@ function updateProfile(e) {
 // Logout function
 function logout() {
     if (confirm('Are you sure you want to logout?')) {
+        revokeSessionToken();
         localStorage.removeItem('loggedInUser');
         localStorage.removeItem('rememberMe');
         window.location.href = 'login.html';
     }
 }
 
+// Tell the server to revoke the session token issued at login (best effort)
+function revokeSessionToken() {
+    const user = JSON.parse(localStorage.getItem('loggedInUser') || 'null');
+    if (user && user.token) {
+        fetch('http://localhost:8080/api/auth/logout', {
+            method: 'POST',
+            headers: { 'Authorization': 'Bearer ' + user.token },
+            keepalive: true
+        }).catch(() => {});
+    }
+}
+
 // Show notification
 function showNotification(message, type = 'info') {
     // Create notification element
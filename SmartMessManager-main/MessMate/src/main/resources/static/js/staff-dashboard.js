@@ -9,6 +9,7 @@ document.addEventListener('DOMContentLoaded', function() {
     loadInventoryData();
     loadFeedbackData();
     updateStats();
+    subscribeToOrderStream();
 });
 
 // Initialize staff dashboard
@@ -200,6 +201,34 @@ function updateStats() {
     document.getElementById('remaining-meals').textContent = Math.max(0, todaysMeals * 50 - mealsServed); // Assuming 50 servings per item
 }
 
+// Live order updates pushed by the server instead of polling
+function subscribeToOrderStream() {
+    if (!window.EventSource) {
+        return;
+    }
+    
+    // EventSource reconnects on its own and resumes from the last event id it saw. It cannot send an
+    // Authorization header, so the stream needs no token and carries no student details.
+    const source = new EventSource('http://localhost:8080/api/orders/stream');
+    
+    source.addEventListener('CREATED', function(e) {
+        const event = JSON.parse(e.data);
+        showNotification(`New ${event.mealType.toLowerCase()} order #${event.orderId}`, 'info');
+        updateStats();
+    });
+    
+    ['STATUS_CHANGED', 'CANCELLED'].forEach(function(type) {
+        source.addEventListener(type, function() {
+            updateStats();
+        });
+    });
+    
+    // Sent when the server could not replay everything we missed
+    source.addEventListener('reset', function() {
+        refreshData();
+    });
+}
+
 // Daily Menu Management
 function loadTodaysMenu() {
     const selectedDate = document.getElementById('menu-date').value || new Date().toISOString().split('T')[0];
@@ -805,11 +834,24 @@ function showNotification(message, type = 'info') {
 
 function logout() {
     if (confirm('Are you sure you want to logout?')) {
+        revokeSessionToken();
         localStorage.removeItem('loggedInUser');
         window.location.href = 'login.html';
     }
 }
 
+// Tell the server to revoke the session token issued at login (best effort)
+function revokeSessionToken() {
+    const user = JSON.parse(localStorage.getItem('loggedInUser') || 'null');
+    if (user && user.token) {
+        fetch('http://localhost:8080/api/auth/logout', {
+            method: 'POST',
+            headers: { 'Authorization': 'Bearer ' + user.token },
+            keepalive: true
+        }).catch(() => {});
+    }
+}
+
 // Setup staff change password form
 function setupStaffChangePasswordForm() {
     const changePasswordForm = document.getElementById('staff-change-password-form');
@@ -0,0 +1,85 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.MealOrder;
+import com.example.MessMate.entity.MenuItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DailyRollupServiceTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private PlatformTransactionManager transactionManager;
+	private DailyRollupService service;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+		service = new DailyRollupService(jdbcTemplate, transactionManager, 7);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void backfillDropsDeltasItAlreadyCountedAndKeepsTodays() {
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		service.orderPlaced(order(yesterday.atTime(12, 0)));
+		service.orderPlaced(order(LocalDateTime.now()));
+
+		service.backfill(yesterday, yesterday);
+		service.flush();
+
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+		assertEquals(1, batch.getValue().size());
+		assertEquals(Date.valueOf(LocalDate.now()), batch.getValue().get(0)[0]);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void chunkThatFailsToCommitPutsItsDeltasBack() {
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		service.orderPlaced(order(yesterday.atTime(12, 0)));
+		doThrow(new TransactionSystemException("connection lost")).when(transactionManager).commit(any());
+
+		assertThrows(RuntimeException.class, () -> service.backfill(yesterday, yesterday));
+		service.flush();
+
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+		assertEquals(Date.valueOf(yesterday), batch.getValue().get(0)[0]);
+		verify(jdbcTemplate).queryForObject(startsWith("SELECT COUNT(*) FROM (SELECT 1 FROM meal_orders"), eq(Long.class),
+				any(Object[].class));
+	}
+
+	private static MealOrder order(LocalDateTime createdAt) {
+		MealOrder order = new MealOrder();
+		order.setMealType(MenuItem.MealType.LUNCH);
+		order.setCreatedAt(createdAt);
+		order.setMenuItems(List.of());
+		order.setTotalAmount(new BigDecimal("80.00"));
+		return order;
+	}
+}
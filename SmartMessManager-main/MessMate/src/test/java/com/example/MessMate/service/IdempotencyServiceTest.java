@@ -0,0 +1,125 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.ApiResponse;
+import com.example.MessMate.entity.IdempotencyRecord;
+import com.example.MessMate.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+	private IdempotencyRecordRepository repository;
+	private PlatformTransactionManager transactionManager;
+	private IdempotencyService service;
+	private AtomicInteger executions;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(IdempotencyRecordRepository.class);
+		transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+		when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(1);
+		service = new IdempotencyService(repository, new ObjectMapper(), transactionManager, 100, 24);
+		executions = new AtomicInteger();
+	}
+
+	@Test
+	void sameCallerAndRequestIsReplayed() {
+		service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+		ResponseEntity<ApiResponse> replay = service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+
+		assertEquals(1, executions.get());
+		assertEquals("true", replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+	}
+
+	@Test
+	void keyReusedForDifferentRequestIsRefused() {
+		service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+		ResponseEntity<ApiResponse> reused = service.execute("orders", "USER:1", "k1", List.of("dinner"), this::placeOrder);
+
+		assertEquals(1, executions.get());
+		assertEquals(422, reused.getStatusCode().value());
+	}
+
+	@Test
+	void anotherCallersKeyDoesNotReplayTheirResponse() {
+		service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+		ResponseEntity<ApiResponse> other = service.execute("orders", "USER:2", "k1", List.of("lunch"), this::placeOrder);
+
+		assertEquals(2, executions.get());
+		assertNull(other.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+	}
+
+	@Test
+	void keyClaimedByAnotherInstanceIsReplayedWithoutRunningTheAction() throws Exception {
+		// What the other instance committed for the same request
+		IdempotencyRecord record = new IdempotencyRecord();
+		record.setState(IdempotencyRecord.State.COMPLETED);
+		record.setStatusCode(200);
+		record.setResponseBody(new ObjectMapper().writeValueAsString(ApiResponse.success("Order created successfully", 7)));
+		record.setRequestHash(requestHash(List.of("lunch")));
+		record.setExpiresAt(LocalDateTime.now().plusHours(1));
+		when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(0);
+		when(repository.findByRecordKey(anyString())).thenReturn(Optional.of(record));
+
+		ResponseEntity<ApiResponse> replay = service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+
+		assertEquals(0, executions.get());
+		assertEquals("true", replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+		verify(repository, never()).complete(anyString(), any(), any(Integer.class), anyString());
+	}
+
+	@Test
+	void expiredKeyIsNotReplayed() {
+		service = new IdempotencyService(repository, new ObjectMapper(), transactionManager, 100, 0);
+
+		service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+		ResponseEntity<ApiResponse> again = service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+
+		assertEquals(2, executions.get());
+		assertNull(again.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+	}
+
+	@Test
+	void failedActionReleasesTheKey() {
+		service.execute("orders", "USER:1", "k1", List.of("lunch"),
+				() -> ResponseEntity.internalServerError().body(ApiResponse.error("database unavailable")));
+		service.execute("orders", "USER:1", "k1", List.of("lunch"), this::placeOrder);
+
+		assertEquals(1, executions.get());
+		// The template hands a rollback-only status to the manager, which rolls the claim back with the work
+		verify(transactionManager).commit(argThat(TransactionStatus::isRollbackOnly));
+	}
+
+	// SHA-256 of the request serialised as JSON, as the service fingerprints it
+	private static String requestHash(Object request) throws Exception {
+		byte[] json = new ObjectMapper().writeValueAsBytes(request);
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+	}
+
+	private ResponseEntity<ApiResponse> placeOrder() {
+		return ResponseEntity.ok(ApiResponse.success("Order created successfully", executions.incrementAndGet()));
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginRateLimiterTest {
+
+	private final AtomicLong now = new AtomicLong();
+	private final LoginRateLimiter limiter = new LoginRateLimiter(3, 5, now::get);
+
+	@Test
+	void limitsEachAccountAndRefillsOverTime() {
+		for (int i = 0; i < 3; i++) {
+			limiter.check("a@x.com", null);
+		}
+		assertThrows(TooManyRequestsException.class, () -> limiter.check("A@x.com", null));
+		assertDoesNotThrow(() -> limiter.check("b@x.com", null));
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+		assertDoesNotThrow(() -> limiter.check("a@x.com", null));
+		assertThrows(TooManyRequestsException.class, () -> limiter.check("a@x.com", null));
+	}
+
+	@Test
+	void limitsEachAddressAcrossAccounts() {
+		for (int i = 0; i < 5; i++) {
+			limiter.check("user" + i + "@x.com", "10.0.0.1");
+		}
+		assertThrows(TooManyRequestsException.class, () -> limiter.check("other@x.com", "10.0.0.1"));
+		assertDoesNotThrow(() -> limiter.check("other@x.com", "10.0.0.2"));
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LowWatermarkTest {
+
+	@Test
+	void advancesOnlyPastContiguousCompletedChunks() {
+		LowWatermark watermark = new LowWatermark(100);
+		long first = watermark.register();
+		long second = watermark.register();
+		long third = watermark.register();
+
+		assertEquals(100, watermark.complete(second, 300));
+		assertEquals(100, watermark.complete(third, 400));
+		assertEquals(400, watermark.complete(first, 200));
+		assertEquals(400, watermark.get());
+	}
+
+	@Test
+	void staysBehindAChunkThatNeverCompletes() {
+		LowWatermark watermark = new LowWatermark(0);
+		long first = watermark.register();
+		watermark.register();
+		long third = watermark.register();
+
+		assertEquals(50, watermark.complete(first, 50));
+		assertEquals(50, watermark.complete(third, 150));
+		assertEquals(50, watermark.get());
+	}
+}
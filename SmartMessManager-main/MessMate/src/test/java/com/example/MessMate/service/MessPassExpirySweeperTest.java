@@ -0,0 +1,43 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessPassExpirySweeperTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void scheduledSweepIsReportedInStats() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		PassValidationIndex index = mock(PassValidationIndex.class);
+		when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class), any(Object[].class)))
+				.thenReturn(true);
+		when(jdbcTemplate.queryForList(startsWith("UPDATE mess_passes"), eq(String.class), any(Object[].class)))
+				.thenReturn(List.of("MP-1", "MP-2"));
+		MessPassExpirySweeper sweeper = new MessPassExpirySweeper(jdbcTemplate, mock(PlatformTransactionManager.class),
+				index, 1000);
+
+		sweeper.scheduledSweep();
+
+		Map<String, Object> stats = sweeper.getStats();
+		Map<String, Object> scheduled = (Map<String, Object>) stats.get("lastScheduled");
+		assertEquals(1L, stats.get("runs"));
+		assertEquals("scheduled", stats.get("lastTrigger"));
+		assertEquals("FINISHED", scheduled.get("outcome"));
+		assertEquals(2, scheduled.get("deactivated"));
+		assertEquals(1, scheduled.get("chunks"));
+		verify(index).evict(List.of("MP-1", "MP-2"));
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.MealOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderIntakeServiceTest {
+
+	private OrderIntakeService intake;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		intake.stop();
+	}
+
+	@Test
+	void badOrderOnlyFailsItsOwnCaller() throws Exception {
+		OrderService orderService = mock(OrderService.class);
+		when(orderService.saveOrderBatch(anyList())).thenAnswer(invocation -> {
+			List<MealOrder> orders = invocation.getArgument(0);
+			List<MealOrder> saved = new ArrayList<>();
+			for (MealOrder order : orders) {
+				if ("bad".equals(order.getSpecialInstructions())) {
+					throw new RuntimeException("foreign key violation");
+				}
+				order.setId((long) order.getSpecialInstructions().hashCode());
+				saved.add(order);
+			}
+			return saved;
+		});
+		// A long linger so all three land in the same batch
+		intake = new OrderIntakeService(orderService, true, 10, 10, 200, 5000);
+		intake.start();
+
+		CompletableFuture<MealOrder> first = submitAsync("good-1");
+		CompletableFuture<MealOrder> bad = submitAsync("bad");
+		CompletableFuture<MealOrder> second = submitAsync("good-2");
+
+		assertEquals("good-1", first.get().getSpecialInstructions());
+		assertEquals("good-2", second.get().getSpecialInstructions());
+		ExecutionException failure = assertThrows(ExecutionException.class, bad::get);
+		assertEquals("foreign key violation", failure.getCause().getMessage());
+	}
+
+	@Test
+	void timedOutOrderStillQueuedIsWithdrawn() throws Exception {
+		OrderService orderService = mock(OrderService.class);
+		// Writer never started, so the order is still queued when the caller gives up
+		intake = new OrderIntakeService(orderService, true, 10, 10, 5, 50);
+
+		MealOrder order = new MealOrder();
+		RuntimeException failure = assertThrows(RuntimeException.class, () -> intake.submit(order));
+
+		assertInstanceOf(OrderIntakeRejectedException.class, failure);
+		assertEquals(1L, intake.getStats().get("withdrawn"));
+	}
+
+	private CompletableFuture<MealOrder> submitAsync(String instructions) {
+		MealOrder order = new MealOrder();
+		order.setSpecialInstructions(instructions);
+		return CompletableFuture.supplyAsync(() -> intake.submit(order));
+	}
+}
@@ -0,0 +1,151 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.PassLedgerEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the ledger against an in-memory stand-in for pass_ledger: entries become visible on commit, and the
+ * advisory lock is held from the moment it is taken until the transaction ends, as in PostgreSQL.
+ */
+class PassLedgerServiceTest {
+
+	private static final int THREADS = 64;
+	private static final BigDecimal SWIPE = new BigDecimal("10.00");
+
+	private final List<BigDecimal> committed = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<List<BigDecimal>> pending = ThreadLocal.withInitial(ArrayList::new);
+	private final ReentrantLock advisoryLock = new ReentrantLock();
+	private PassLedgerService service;
+
+	@BeforeEach
+	void setUp() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+		doAnswer(invocation -> endTransaction(true)).when(transactionManager).commit(any());
+		doAnswer(invocation -> endTransaction(false)).when(transactionManager).rollback(any());
+
+		when(jdbcTemplate.queryForObject(startsWith("SELECT pg_advisory_xact_lock"), eq(String.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					advisoryLock.lock();
+					return "";
+				});
+		when(jdbcTemplate.queryForList(startsWith("SELECT COALESCE(s.balance"), eq(BigDecimal.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					BigDecimal balance = committedBalance();
+					// Widens the gap between the read and the insert so an unguarded debit would overdraw
+					Thread.sleep(1);
+					return List.of(balance);
+				});
+		when(jdbcTemplate.update(startsWith("INSERT INTO pass_ledger"), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					pending.get().add(invocation.getArgument(2));
+					return 1;
+				});
+		when(jdbcTemplate.queryForList(startsWith("WITH entry AS"), eq(BigDecimal.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					BigDecimal amount = invocation.getArgument(3);
+					pending.get().add(amount);
+					return List.of(committedBalance().add(amount));
+				});
+
+		service = new PassLedgerService(jdbcTemplate, transactionManager, 1, 1);
+		committed.add(new BigDecimal("320.00"));
+	}
+
+	@Test
+	void concurrentDebitsNeverSpendTheSameMoneyTwice() throws Exception {
+		AtomicInteger refused = new AtomicInteger();
+		List<BigDecimal> results = runConcurrently(() -> {
+			try {
+				return service.debit(1L, SWIPE, PassLedgerEntry.EntryType.MEAL_DEDUCTION, null);
+			} catch (RuntimeException e) {
+				assertEquals("Insufficient balance", e.getMessage());
+				refused.incrementAndGet();
+				return null;
+			}
+		});
+
+		assertEquals(32, results.size());
+		assertEquals(32, refused.get());
+		assertEquals(0, BigDecimal.ZERO.compareTo(committedBalance()));
+		assertTrue(results.stream().allMatch(balance -> balance.signum() >= 0));
+		// Every debit saw the one before it, so each returned a different balance
+		assertEquals(32, results.stream().map(BigDecimal::stripTrailingZeros).distinct().count());
+	}
+
+	@Test
+	void concurrentCreditsAreAllCounted() throws Exception {
+		List<BigDecimal> results = runConcurrently(() ->
+				service.credit(1L, SWIPE, PassLedgerEntry.EntryType.RECHARGE, null));
+
+		assertEquals(THREADS, results.size());
+		assertEquals(0, new BigDecimal("960.00").compareTo(committedBalance()));
+	}
+
+	private List<BigDecimal> runConcurrently(Callable<BigDecimal> task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<BigDecimal>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return task.call();
+				}));
+			}
+			start.countDown();
+			List<BigDecimal> results = new ArrayList<>();
+			for (Future<BigDecimal> future : futures) {
+				BigDecimal result = future.get(30, TimeUnit.SECONDS);
+				if (result != null) {
+					results.add(result);
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Object endTransaction(boolean commit) {
+		if (commit) {
+			committed.addAll(pending.get());
+		}
+		pending.get().clear();
+		if (advisoryLock.isHeldByCurrentThread()) {
+			advisoryLock.unlock();
+		}
+		return null;
+	}
+
+	private BigDecimal committedBalance() {
+		return committed.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+	}
+}
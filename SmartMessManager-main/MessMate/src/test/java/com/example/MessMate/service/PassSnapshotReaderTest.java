@@ -0,0 +1,54 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassSnapshotReaderTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void writtenPassesCanBeFoundByBinarySearch() throws Exception {
+		LocalDate from = LocalDate.of(2025, 1, 1);
+		LocalDate until = LocalDate.of(2025, 6, 30);
+		Path file;
+		try (PassSnapshotWriter writer = new PassSnapshotWriter(directory.resolve("full.bin"), PassSnapshotReader.KIND_FULL, 0)) {
+			for (int i = 0; i < 1000; i++) {
+				writer.append(String.format("MP%05d", i), from, until, i % 10 != 0, i * 100L);
+			}
+			file = writer.commit(42L);
+		}
+
+		PassSnapshotReader reader = PassSnapshotReader.open(file);
+		assertEquals(1000, reader.size());
+		assertEquals(42L, reader.version());
+		assertFalse(reader.isDelta());
+
+		PassSnapshotReader.Entry entry = reader.find("MP00123").orElseThrow();
+		assertEquals(12300L, entry.balanceInPaise());
+		assertTrue(entry.isValidOn(LocalDate.of(2025, 3, 1)));
+		assertFalse(entry.isValidOn(LocalDate.of(2025, 7, 1)));
+		assertFalse(reader.find("MP00120").orElseThrow().active());
+		assertTrue(reader.find("MP99999").isEmpty());
+		assertTrue(reader.find("MP0012").isEmpty());
+	}
+
+	@Test
+	void rejectsOutOfOrderAppends() throws Exception {
+		LocalDate day = LocalDate.of(2025, 1, 1);
+		try (PassSnapshotWriter writer = new PassSnapshotWriter(directory.resolve("bad.bin"), PassSnapshotReader.KIND_FULL, 0)) {
+			writer.append("MP2", day, day, true, 0);
+			assertThrows(IllegalStateException.class, () -> writer.append("MP1", day, day, true, 0));
+		}
+		assertFalse(directory.resolve("bad.bin.tmp").toFile().exists());
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.repository.MessPassRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PassSnapshotServiceTest {
+
+	@TempDir
+	Path directory;
+
+	private MessPassRepository repository;
+	private final AtomicLong version = new AtomicLong(1_000L);
+	private PassSnapshotService service;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(MessPassRepository.class);
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.queryForObject(anyString(), eq(Timestamp.class)))
+				.thenAnswer(invocation -> new Timestamp(version.get()));
+		when(repository.streamActiveForSnapshot()).thenAnswer(invocation -> Stream.<Object[]>of(row("MP-1")));
+		when(repository.streamChangedForSnapshot(any(LocalDateTime.class)))
+				.thenAnswer(invocation -> Stream.<Object[]>of(row("MP-1")));
+		service = new PassSnapshotService(repository, jdbcTemplate, mock(PlatformTransactionManager.class),
+				directory.toString(), 300, 900);
+	}
+
+	@Test
+	void pollsForTheSameDeltaShareOneFile() {
+		PassSnapshotService.Snapshot first = service.buildDelta(500L);
+		PassSnapshotService.Snapshot second = service.buildDelta(500L);
+
+		assertEquals(first.file(), second.file());
+		verify(repository, times(1)).streamChangedForSnapshot(any(LocalDateTime.class));
+	}
+
+	@Test
+	void pruningKeepsThePreviousFullSnapshotAndRecentDeltas() throws Exception {
+		PassSnapshotService.Snapshot oldest = service.buildFullSnapshot();
+		PassSnapshotService.Snapshot staleDelta = service.buildDelta(500L);
+		Files.setLastModifiedTime(staleDelta.file(), FileTime.fromMillis(System.currentTimeMillis() - 3_600_000L));
+		version.set(2_000L);
+		PassSnapshotService.Snapshot previous = service.buildFullSnapshot();
+		PassSnapshotService.Snapshot freshDelta = service.buildDelta(1_500L);
+		version.set(3_000L);
+		PassSnapshotService.Snapshot current = service.buildFullSnapshot();
+
+		assertFalse(Files.exists(oldest.file()));
+		assertFalse(Files.exists(staleDelta.file()));
+		assertTrue(Files.exists(previous.file()));
+		assertTrue(Files.exists(freshDelta.file()));
+		assertTrue(Files.exists(current.file()));
+	}
+
+	private static Object[] row(String passNumber) {
+		return new Object[]{passNumber, LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), true,
+				new BigDecimal("10.00")};
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.PassValidationResponse;
+import com.example.MessMate.entity.MessPass;
+import com.example.MessMate.repository.MessPassRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PassValidationIndexTest {
+
+	private MessPassRepository repository;
+	private PassLedgerService ledger;
+	private PassValidationIndex index;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(MessPassRepository.class);
+		ledger = mock(PassLedgerService.class);
+		when(repository.findByIsActiveTrue()).thenReturn(List.of());
+		when(ledger.activeBalances()).thenReturn(Map.of());
+		index = new PassValidationIndex(repository, ledger);
+		ReflectionTestUtils.setField(index, "notFoundTtlSeconds", 30L);
+		index.rebuild();
+	}
+
+	@Test
+	void passUnknownToTheFilterIsLookedUpWithLedgerBalance() {
+		MessPass pass = new MessPass();
+		pass.setId(7L);
+		pass.setPassNumber("MP-REMOTE");
+		pass.setValidFrom(LocalDate.now().minusDays(1));
+		pass.setValidUntil(LocalDate.now().plusDays(30));
+		pass.setIsActive(true);
+		pass.setBalance(BigDecimal.ZERO);
+		when(repository.findByPassNumber("MP-REMOTE")).thenReturn(Optional.of(pass));
+		when(ledger.currentBalance(7L)).thenReturn(new BigDecimal("250.00"));
+
+		PassValidationResponse first = index.validate("MP-REMOTE");
+		PassValidationResponse second = index.validate("MP-REMOTE");
+
+		assertEquals(PassValidationResponse.Status.VALID, first.getStatus());
+		assertEquals(new BigDecimal("250.00"), second.getBalance());
+		verify(repository, times(1)).findByPassNumber("MP-REMOTE");
+	}
+
+	@Test
+	void databaseMissIsRememberedForTheTtl() {
+		when(repository.findByPassNumber("MP-TYPO")).thenReturn(Optional.empty());
+
+		assertEquals(PassValidationResponse.Status.NOT_FOUND, index.validate("MP-TYPO").getStatus());
+		assertEquals(PassValidationResponse.Status.NOT_FOUND, index.validate("MP-TYPO").getStatus());
+
+		verify(repository, times(1)).findByPassNumber("MP-TYPO");
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTest {
+
+	@Test
+	void timedOutHashIsSkippedOnceAHasherFreesUp() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger hashed = new AtomicInteger();
+		PasswordEncoder encoder = new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				hashed.incrementAndGet();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "hash:" + rawPassword;
+			}
+
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				return encode(rawPassword).equals(encodedPassword);
+			}
+		};
+		PasswordHashingService service = new PasswordHashingService(encoder, 1, 4, 100);
+		try {
+			// The first call holds the only hasher; the second waits behind it and times out
+			Thread blocker = new Thread(() -> assertThrows(TooManyRequestsException.class, () -> service.encode("a")));
+			blocker.start();
+			while (hashed.get() == 0) {
+				Thread.onSpinWait();
+			}
+			assertThrows(TooManyRequestsException.class, () -> service.encode("b"));
+			release.countDown();
+			blocker.join();
+
+			assertEquals("hash:c", service.encode("c"));
+			assertEquals(2, hashed.get());
+			assertTrue((Long) service.getStats().get("timedOut") >= 2);
+		} finally {
+			service.shutdown();
+		}
+	}
+}
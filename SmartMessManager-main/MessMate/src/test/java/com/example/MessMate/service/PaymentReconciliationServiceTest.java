@@ -0,0 +1,104 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.ReconciliationReport;
+import com.example.MessMate.entity.Payment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentReconciliationServiceTest {
+
+	// id -> transaction id, all PENDING; the stub gateway settles only the first two
+	private static final String[] PENDING = {"TXN-1", "TXN-2", "TXN-3"};
+
+	private JdbcTemplate jdbcTemplate;
+	private DailyRollupService dailyRollupService;
+	private PaymentReconciliationService service;
+	private final List<String> settled = new ArrayList<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		dailyRollupService = mock(DailyRollupService.class);
+		PaymentGateway gateway = transactionIds -> Map.of(
+				"TXN-1", Payment.PaymentStatus.COMPLETED,
+				"TXN-2", Payment.PaymentStatus.FAILED);
+
+		when(jdbcTemplate.queryForList(startsWith("UPDATE reconciliation_checkpoints"), eq(Long.class), any(Object[].class)))
+				.thenReturn(List.of(0L));
+		when(jdbcTemplate.query(startsWith("SELECT id, transaction_id"), any(RowMapper.class), any(Object[].class)))
+				.thenAnswer(invocation -> pendingAfter(invocation.getArgument(1), (Long) invocation.getArgument(2),
+						(Integer) invocation.getArgument(3)));
+		when(jdbcTemplate.queryForList(startsWith("UPDATE payments SET status"), eq(Long.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					String ids = invocation.getArgument(3);
+					settled.add(invocation.getArgument(2) + ids);
+					return ids.equals("{}") ? List.of() : Arrays.stream(ids.substring(1, ids.length() - 1).split(","))
+							.map(Long::valueOf).collect(Collectors.toList());
+				});
+
+		service = new PaymentReconciliationService(jdbcTemplate, mock(PlatformTransactionManager.class), gateway,
+				dailyRollupService, 2, 2, 300);
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void settlesWhatTheGatewayKnowsAndLeavesTheRestPending() {
+		ReconciliationReport report = service.reconcile();
+
+		assertEquals(ReconciliationReport.Outcome.FINISHED, report.getOutcome());
+		assertEquals(3, report.getScanned());
+		assertEquals(1, report.getCompleted());
+		assertEquals(1, report.getFailed());
+		assertEquals(1, report.getUnsettled());
+		assertEquals(2, report.getChunks());
+		assertEquals(3, report.getCheckpointPaymentId());
+		assertTrue(settled.containsAll(List.of("COMPLETED{1}", "FAILED{2}")));
+		verify(dailyRollupService, times(1)).paymentCompleted(argThat(payment -> payment.getId() == 1L));
+		verify(jdbcTemplate).update(startsWith("UPDATE reconciliation_checkpoints SET state"),
+				eq("IDLE"), eq(3L), anyString());
+	}
+
+	private <T> List<T> pendingAfter(RowMapper<T> mapper, long cursor, int limit) throws Exception {
+		List<T> rows = new ArrayList<>();
+		for (long id = cursor + 1; id <= PENDING.length && rows.size() < limit; id++) {
+			ResultSet rs = mock(ResultSet.class);
+			when(rs.getLong("id")).thenReturn(id);
+			when(rs.getString("transaction_id")).thenReturn(PENDING[(int) id - 1]);
+			when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal("100.00"));
+			when(rs.getString("payment_type")).thenReturn(Payment.PaymentType.MESS_PASS_RECHARGE.name());
+			when(rs.getTimestamp("created_at")).thenReturn(new Timestamp(System.currentTimeMillis()));
+			rows.add(mapper.mapRow(rs, rows.size()));
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,216 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.entity.Payment;
+import com.example.MessMate.entity.User;
+import com.example.MessMate.repository.PaymentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs recharges against an in-memory payments table keyed by transaction id. The id generator hands out
+ * TXN-<outcome>-<n>, and the outcome picks how that recharge's first attempt goes: 0 commits, 1 hits a lock
+ * timeout before writing anything, and 2 commits but loses its acknowledgement, so the retry meets the
+ * unique key.
+ */
+class PaymentServiceTest {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("50.00");
+
+	private final Map<String, Long> committed = new ConcurrentHashMap<>();
+	private final Map<String, BigDecimal> credited = new ConcurrentHashMap<>();
+	private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+	private final AtomicLong paymentIds = new AtomicLong();
+	private final AtomicLong transactionIds = new AtomicLong();
+	private JdbcTemplate jdbcTemplate;
+	private DailyRollupService dailyRollupService;
+	private PassValidationIndex passValidationIndex;
+	private PaymentService service;
+	private User user;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		dailyRollupService = mock(DailyRollupService.class);
+		passValidationIndex = mock(PassValidationIndex.class);
+		IdGenerator idGenerator = mock(IdGenerator.class);
+		when(idGenerator.nextId("TXN")).thenAnswer(invocation -> {
+			long n = transactionIds.getAndIncrement();
+			return "TXN-" + n % 3 + "-" + n;
+		});
+
+		when(jdbcTemplate.query(startsWith("WITH p AS"), any(RowMapper.class), any(Object[].class)))
+				.thenAnswer(invocation -> recharge(invocation.getArgument(1), invocation.getArgument(4),
+						invocation.getArgument(5)));
+		when(jdbcTemplate.query(startsWith("SELECT payment.id"), any(RowMapper.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					String transactionId = invocation.getArgument(2);
+					Long paymentId = committed.get(transactionId);
+					return paymentId == null ? List.of() : List.of(row(invocation.getArgument(1), paymentId));
+				});
+
+		service = new PaymentService(mock(PaymentRepository.class), idGenerator, passValidationIndex,
+				mock(JdbcStreamExporter.class), jdbcTemplate, dailyRollupService);
+		ReflectionTestUtils.setField(service, "rechargeMaxAttempts", 3);
+		user = new User();
+		user.setId(7L);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+	}
+
+	@Test
+	void lockTimeoutIsRetriedWithTheSameTransactionId() {
+		transactionIds.set(1);
+
+		Payment payment = service.rechargeMessPass(user, AMOUNT);
+
+		assertEquals("TXN-1-1", payment.getTransactionId());
+		assertEquals(2, attempts.get("TXN-1-1"));
+		assertEquals(1, committed.size());
+		verify(dailyRollupService).paymentCompleted(payment);
+	}
+
+	@Test
+	void lostAcknowledgementReturnsTheCommittedPaymentAndCountsItOnce() {
+		transactionIds.set(2);
+
+		Payment payment = service.rechargeMessPass(user, AMOUNT);
+
+		assertEquals(2, attempts.get("TXN-2-2"));
+		assertEquals(committed.get("TXN-2-2"), payment.getId());
+		assertEquals(1, committed.size());
+		verify(dailyRollupService, times(1)).paymentCompleted(payment);
+		verify(passValidationIndex).update(payment.getMessPass());
+	}
+
+	@Test
+	void givesUpAfterTheConfiguredAttempts() {
+		ReflectionTestUtils.setField(service, "rechargeMaxAttempts", 1);
+		transactionIds.set(1);
+
+		assertThrows(CannotAcquireLockException.class, () -> service.rechargeMessPass(user, AMOUNT));
+		assertEquals(0, committed.size());
+	}
+
+	@Test
+	void insideACallersTransactionNothingIsRetried() {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		transactionIds.set(2);
+
+		assertThrows(TransientDataAccessResourceException.class, () -> service.rechargeMessPass(user, AMOUNT));
+		assertEquals(1, attempts.get("TXN-2-2"));
+		verify(dailyRollupService, never()).paymentCompleted(any());
+	}
+
+	@Test
+	void parallelRechargesAreEachRecordedOnce() throws Exception {
+		int threads = 64;
+		Map<String, Long> perRecharge = new ConcurrentHashMap<>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Payment>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return service.rechargeMessPass(user, AMOUNT);
+				}));
+			}
+			start.countDown();
+			for (Future<Payment> future : futures) {
+				Payment payment = future.get(30, TimeUnit.SECONDS);
+				perRecharge.put(payment.getTransactionId(), payment.getId());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Every caller got the payment that was written for it, and each was written and counted once
+		assertEquals(threads, committed.size());
+		assertEquals(committed, perRecharge);
+		assertEquals(0, new BigDecimal("3200.00").compareTo(sum(credited.values())));
+		ArgumentCaptor<Payment> counted = ArgumentCaptor.forClass(Payment.class);
+		verify(dailyRollupService, times(threads)).paymentCompleted(counted.capture());
+		assertEquals(0, new BigDecimal("3200.00").compareTo(sum(counted.getAllValues().stream()
+				.map(Payment::getAmount).toList())));
+	}
+
+	private List<Payment> recharge(RowMapper<Payment> mapper, BigDecimal amount, String transactionId) throws Exception {
+		int attempt = attempts.merge(transactionId, 1, Integer::sum);
+		if (committed.containsKey(transactionId)) {
+			throw new DuplicateKeyException("duplicate key value violates unique constraint \"payments_transaction_id\"");
+		}
+		boolean firstAttempt = attempt == 1;
+		if (firstAttempt && transactionId.startsWith("TXN-1")) {
+			throw new CannotAcquireLockException("lock timeout");
+		}
+		long paymentId = paymentIds.incrementAndGet();
+		committed.put(transactionId, paymentId);
+		credited.put(transactionId, amount);
+		if (firstAttempt && transactionId.startsWith("TXN-2")) {
+			throw new TransientDataAccessResourceException("connection reset after commit");
+		}
+		return List.of(row(mapper, paymentId));
+	}
+
+	private static BigDecimal sum(Collection<BigDecimal> amounts) {
+		return amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+	}
+
+	private static Payment row(RowMapper<Payment> mapper, long paymentId) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong("payment_id")).thenReturn(paymentId);
+		when(rs.getLong("pass_id")).thenReturn(3L);
+		when(rs.getString("pass_number")).thenReturn("MP-3");
+		when(rs.getDate("valid_from")).thenReturn(Date.valueOf(LocalDate.now().minusDays(1)));
+		when(rs.getDate("valid_until")).thenReturn(Date.valueOf(LocalDate.now().plusDays(30)));
+		when(rs.getBoolean("is_active")).thenReturn(true);
+		when(rs.getBigDecimal("balance")).thenReturn(AMOUNT);
+		when(rs.getTimestamp("created_at")).thenReturn(new Timestamp(System.currentTimeMillis()));
+		return mapper.mapRow(rs, 0);
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokenServiceTest {
+
+	private final SessionTokenService tokens = new SessionTokenService(new SnowflakeIdGenerator(0), "test-secret", 60);
+
+	@Test
+	void verifiesIssuedToken() {
+		String token = tokens.issue(SessionTokenService.Kind.STUDENT, 42L, "STUDENT");
+
+		SessionTokenService.Principal principal = tokens.verify(token).orElseThrow();
+		assertEquals(SessionTokenService.Kind.STUDENT, principal.kind());
+		assertEquals(42L, principal.id());
+		assertEquals("STUDENT", principal.role());
+	}
+
+	@Test
+	void rejectsTamperedOrForeignTokens() {
+		String token = tokens.issue(SessionTokenService.Kind.USER, 7L, "STAFF");
+		String forged = tokens.issue(SessionTokenService.Kind.USER, 7L, "ADMIN");
+		String mixed = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+		assertTrue(tokens.verify(mixed).isEmpty());
+		assertTrue(tokens.verify(token + "x").isEmpty());
+		assertTrue(tokens.verify("not-a-token").isEmpty());
+		assertTrue(new SessionTokenService(new SnowflakeIdGenerator(0), "other-secret", 60).verify(token).isEmpty());
+	}
+
+	@Test
+	void rejectsExpiredAndRevokedTokens() {
+		SessionTokenService expiring = new SessionTokenService(new SnowflakeIdGenerator(0), "test-secret", 0);
+		assertTrue(expiring.verify(expiring.issue(SessionTokenService.Kind.USER, 1L, "ADMIN")).isEmpty());
+
+		String token = tokens.issue(SessionTokenService.Kind.USER, 1L, "ADMIN");
+		tokens.revoke(tokens.verify(token).orElseThrow());
+		assertTrue(tokens.verify(token).isEmpty());
+	}
+}
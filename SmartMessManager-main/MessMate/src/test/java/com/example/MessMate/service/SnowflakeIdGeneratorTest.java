@@ -0,0 +1,67 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+	@Test
+	void idsIncreaseEvenWhenTheClockStallsOrStepsBack() {
+		AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH_MILLIS + 1_000);
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, now::get);
+
+		long previous = generator.nextId();
+		for (int i = 0; i < 10_000; i++) {
+			if (i == 5_000) {
+				now.addAndGet(-500);
+			}
+			long next = generator.nextId();
+			assertTrue(next > previous);
+			previous = next;
+		}
+	}
+
+	@Test
+	void encodedIdsSortLikeTheNumbers() {
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+		String previous = generator.nextId("MP");
+		for (int i = 0; i < 1_000; i++) {
+			String next = generator.nextId("MP");
+			assertEquals(15, next.length());
+			assertTrue(next.compareTo(previous) > 0);
+			previous = next;
+		}
+	}
+
+	@Test
+	void concurrentCallersNeverShareAnId() throws Exception {
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					ids.add(generator.nextId());
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(160_000, ids.size());
+	}
+
+	@Test
+	void rejectsNodeIdsOutsideTheTenBitRange() {
+		assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+	}
+}
@@ -0,0 +1,157 @@
+package com.example.MessMate.service;
+
+import com.example.MessMate.dto.StudentImportReport;
+import com.example.MessMate.repository.StudentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StudentImportServiceTest {
+
+	private static final String HEADER = "name,email,password,roll_number,hostel,room,phone\n";
+
+	private StudentRepository studentRepository;
+	private JdbcTemplate jdbcTemplate;
+	private StudentImportService service;
+
+	@BeforeEach
+	void setUp() {
+		studentRepository = mock(StudentRepository.class);
+		jdbcTemplate = mock(JdbcTemplate.class);
+		PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+		when(passwordEncoder.encode(any())).thenReturn("hash");
+		when(studentRepository.findExistingEmails(any())).thenReturn(List.of());
+		when(studentRepository.findExistingRollNumbers(any())).thenReturn(List.of());
+		when(studentRepository.findByEmailIn(any())).thenReturn(List.of());
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+			List<?> args = invocation.getArgument(1);
+			int[] counts = new int[args.size()];
+			Arrays.fill(counts, 1);
+			return counts;
+		});
+		service = new StudentImportService(studentRepository, jdbcTemplate, passwordEncoder, new ObjectMapper(),
+				mock(StudentSearchIndex.class), mock(IdentityCache.class), 100, 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void splitsQuotedCsvFields() {
+		assertEquals(List.of("Asha", "a@x.com", "", "Hostel \"A\", Block 2"),
+				StudentImportService.splitCsv("Asha,a@x.com,,\"Hostel \"\"A\"\", Block 2\""));
+	}
+
+	@Test
+	void rejectsUnterminatedQuote() {
+		assertThrows(IllegalArgumentException.class, () -> StudentImportService.splitCsv("Asha,\"a@x.com"));
+	}
+
+	@Test
+	void reportsMissingFieldsOnTheirLine() throws Exception {
+		StudentImportReport report = importCsv(
+				row("Asha", "asha@x.com", "R1"),
+				"Ravi,ravi@x.com,secret,R2,H1,,9000000000");
+
+		assertEquals(2, report.getRows());
+		assertEquals(1, report.getImported());
+		StudentImportReport.RowError error = onlyError(report);
+		assertEquals(3, error.getLine());
+		assertEquals(StudentImportReport.Reason.MISSING_FIELD, error.getReason());
+		assertEquals("room is required", error.getMessage());
+	}
+
+	@Test
+	void keepsTheFirstOccurrenceOfADuplicateInTheFile() throws Exception {
+		StudentImportReport report = importCsv(
+				row("Asha", "asha@x.com", "R1"),
+				row("Ravi", "ravi@x.com", "R2"),
+				row("Asha Again", "asha@x.com", "R3"),
+				row("Ravi Again", "ravi2@x.com", "R2"));
+
+		assertEquals(2, report.getImported());
+		assertEquals(List.of(4, 5), report.getErrors().stream().map(StudentImportReport.RowError::getLine).toList());
+		assertEquals(List.of(StudentImportReport.Reason.DUPLICATE_IN_FILE, StudentImportReport.Reason.DUPLICATE_IN_FILE),
+				report.getErrors().stream().map(StudentImportReport.RowError::getReason).toList());
+		assertEquals("R3", report.getErrors().get(0).getRollNumber());
+		assertEquals("ravi2@x.com", report.getErrors().get(1).getEmail());
+	}
+
+	@Test
+	void rejectsEmailsAndRollNumbersThatAlreadyExist() throws Exception {
+		when(studentRepository.findExistingEmails(any())).thenReturn(List.of("ravi@x.com"));
+		when(studentRepository.findExistingRollNumbers(any())).thenReturn(List.of("R3"));
+
+		StudentImportReport report = importCsv(
+				row("Asha", "asha@x.com", "R1"),
+				row("Ravi", "ravi@x.com", "R2"),
+				row("Meera", "meera@x.com", "R3"));
+
+		assertEquals(1, report.getImported());
+		assertEquals(2, report.getRejected());
+		assertEquals(3, report.getErrors().get(0).getLine());
+		assertEquals(StudentImportReport.Reason.EMAIL_EXISTS, report.getErrors().get(0).getReason());
+		assertEquals(4, report.getErrors().get(1).getLine());
+		assertEquals(StudentImportReport.Reason.ROLL_NUMBER_EXISTS, report.getErrors().get(1).getReason());
+		assertEquals(List.of("asha@x.com"), insertedEmails());
+	}
+
+	@Test
+	void rowLostToAConcurrentSignupIsReportedWithoutFailingItsBatch() throws Exception {
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0, 1});
+
+		StudentImportReport report = importCsv(
+				row("Asha", "asha@x.com", "R1"),
+				row("Ravi", "ravi@x.com", "R2"),
+				row("Meera", "meera@x.com", "R3"));
+
+		assertEquals(3, report.getRows());
+		assertEquals(2, report.getImported());
+		StudentImportReport.RowError error = onlyError(report);
+		assertEquals(3, error.getLine());
+		assertEquals(StudentImportReport.Reason.CONFLICT, error.getReason());
+		assertEquals("ravi@x.com", error.getEmail());
+	}
+
+	private StudentImportReport importCsv(String... rows) throws Exception {
+		String csv = HEADER + String.join("\n", rows) + "\n";
+		return service.importStudents(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+				StudentImportService.Format.CSV);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> insertedEmails() {
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+		return batch.getValue().stream().map(args -> (String) args[1]).toList();
+	}
+
+	private static StudentImportReport.RowError onlyError(StudentImportReport report) {
+		assertEquals(1, report.getErrors().size());
+		return report.getErrors().get(0);
+	}
+
+	private static String row(String name, String email, String rollNumber) {
+		return name + "," + email + ",secret," + rollNumber + ",H1,101,9000000000";
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.MessMate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+	private TrigramIndex<String> index;
+
+	@BeforeEach
+	void setUp() {
+		index = new TrigramIndex<>();
+		index.put(1L, "Paneer Curry", "Paneer Curry");
+		index.put(2L, "Chicken Curry", "Chicken Curry");
+		index.put(3L, "Curd Rice", "Curd Rice");
+		index.put(4L, "Dal Tadka", "Dal Tadka");
+	}
+
+	@Test
+	void prefixMatchesRankAboveSubstringMatches() {
+		List<String> results = index.search("cur");
+		assertEquals("Curd Rice", results.get(0));
+		assertTrue(results.containsAll(List.of("Paneer Curry", "Chicken Curry")));
+		assertEquals(3, results.size());
+	}
+
+	@Test
+	void findsSubstringInsideWord() {
+		assertEquals(List.of("Chicken Curry"), index.search("hick"));
+	}
+
+	@Test
+	void toleratesSingleTypo() {
+		assertEquals("Paneer Curry", index.search("paner").get(0));
+	}
+
+	@Test
+	void shortQueriesFallBackToSubstringScan() {
+		assertEquals(List.of("Dal Tadka"), index.search("ad"));
+	}
+
+	@Test
+	void updatesAndRemovalsAreReflected() {
+		index.put(4L, "Dal Makhani", "Dal Makhani");
+		assertTrue(index.search("tadka").isEmpty());
+		assertEquals(List.of("Dal Makhani"), index.search("makhani"));
+
+		index.remove(4L);
+		assertTrue(index.search("dal").isEmpty());
+		assertEquals(3, index.size());
+	}
+}